@@ -0,0 +1,129 @@
+package benchmarks;
+
+import model.Game;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmarks the rules of the game over the position corpus. Every benchmark handles each position
+ * once per invocation and reports the time per position.
+ *
+ * Sowing and capturing change the game, so those benchmarks copy each position first and include the
+ * cost of the copy, which {@link #copy} measures on its own. Likewise {@link #sowAndCapture} includes
+ * the cost of {@link #sow}.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@OperationsPerInvocation(Positions.SIZE)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class GameBenchmark
+{
+	private Game[] positions;
+	private int[] moves;
+
+	@Setup
+	public void setUp()
+	{
+		positions = Positions.create();
+		moves = Positions.moves(positions);
+	}
+
+	@Benchmark
+	public void copy(Blackhole blackhole)
+	{
+		for (Game position : positions)
+			blackhole.consume(new Game(position));
+	}
+
+	@Benchmark
+	public void sow(Blackhole blackhole)
+	{
+		for (int i = 0; i < positions.length; i++)
+		{
+			Game game = new Game(positions[i]);
+			game.sow(moves[i]);
+			blackhole.consume(game);
+		}
+	}
+
+	@Benchmark
+	public void sowAndCapture(Blackhole blackhole)
+	{
+		for (int i = 0; i < positions.length; i++)
+		{
+			Game game = new Game(positions[i]);
+			game.sow(moves[i]);
+			blackhole.consume(game.captureHouses());
+		}
+	}
+
+	@Benchmark
+	public void makeAndUnmakeMove(Blackhole blackhole)
+	{
+		for (int i = 0; i < positions.length; i++)
+		{
+			Game game = positions[i];
+			game.makeMove(moves[i]);
+			blackhole.consume(game.getHash());
+			game.unmakeMove();
+		}
+	}
+
+	@Benchmark
+	public int canSow()
+	{
+		int legal = 0;
+		for (Game position : positions)
+		{
+			for (int house = 0; house < 12; house++)
+			{
+				if (position.canSow(house))
+					legal++;
+			}
+		}
+		return legal;
+	}
+
+	@Benchmark
+	public int legalMoves()
+	{
+		int legal = 0;
+		for (Game position : positions)
+			legal += Integer.bitCount(position.legalMoves());
+		return legal;
+	}
+
+	@Benchmark
+	public int canSowAny()
+	{
+		int movable = 0;
+		for (Game position : positions)
+		{
+			if (position.canSowAny())
+				movable++;
+		}
+		return movable;
+	}
+
+	@Benchmark
+	public void toString(Blackhole blackhole)
+	{
+		for (Game position : positions)
+			blackhole.consume(position.toString());
+	}
+}
@@ -0,0 +1,78 @@
+package benchmarks;
+
+import model.Game;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.SplittableRandom;
+
+/**
+ * The fixed corpus of positions every benchmark runs over: the opening, and positions from the
+ * opening, middle game and endgame of random games played from a fixed seed, so that every run and
+ * every build measures the same work.
+ */
+final class Positions
+{
+	static final int SIZE = 64;
+
+	private static final long SEED = 0x0A3A9EL;
+	private static final int NUMBER_OF_HOUSES = 12, STARTING_SEEDS_PER_HOUSE = 4, PLIES_BETWEEN_SAMPLES = 7;
+
+	private Positions()
+	{
+	}
+
+	/**
+	 * @return new copies of the positions in the corpus, each with at least one legal move.
+	 */
+	static Game[] create()
+	{
+		SplittableRandom random = new SplittableRandom(SEED);
+		int[] startingSeeds = new int[NUMBER_OF_HOUSES];
+		Arrays.fill(startingSeeds, STARTING_SEEDS_PER_HOUSE);
+		List<Game> positions = new ArrayList<Game>(SIZE);
+		Game game = new Game(false);
+		game.setPosition(startingSeeds, 0, 0, 0);
+		positions.add(new Game(game));
+
+		int plies = 0;
+		while (positions.size() < SIZE)
+		{
+			if (game.hasEnded() || !game.canSowAny())
+			{
+				game.setPosition(startingSeeds, 0, 0, random.nextInt(2));
+				plies = 0;
+			}
+			game.makeMove(randomMove(game, random));
+			plies++;
+			if (plies % PLIES_BETWEEN_SAMPLES == 0 && !game.hasEnded() && game.canSowAny())
+				positions.add(new Game(game));
+		}
+		return positions.toArray(new Game[SIZE]);
+	}
+
+	/**
+	 * @return a legal move for each of the positions, picked at random from the same fixed seed.
+	 */
+	static int[] moves(Game[] positions)
+	{
+		SplittableRandom random = new SplittableRandom(SEED);
+		int[] moves = new int[positions.length];
+		for (int i = 0; i < positions.length; i++)
+			moves[i] = randomMove(positions[i], random);
+		return moves;
+	}
+
+	private static int randomMove(Game game, SplittableRandom random)
+	{
+		int[] moves = new int[NUMBER_OF_HOUSES / 2];
+		int count = 0;
+		for (int i = 0; i < NUMBER_OF_HOUSES; i++)
+		{
+			if (game.canSow(i))
+				moves[count++] = i;
+		}
+		return moves[random.nextInt(count)];
+	}
+}
@@ -0,0 +1,67 @@
+package benchmarks;
+
+import model.Game;
+import model.SearchEngine;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmarks Game.nextAIMove() at several depths over the position corpus. Each invocation starts
+ * from a cleared engine, so the transposition table, history and position cache cannot carry answers
+ * over from the previous invocation. The engine itself is made once, so its table is not allocated
+ * inside the measurement. The opening book and tablebase are left out unless they are set up
+ * through their system properties.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@OperationsPerInvocation(Positions.SIZE)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class SearchBenchmark
+{
+	@Param({"4", "8", "12"})
+	public int depth;
+
+	private Game[] positions;
+	private SearchEngine engine;
+
+	@Setup(Level.Trial)
+	public void setUp()
+	{
+		positions = Positions.create();
+		engine = new SearchEngine(depth, 4, 1);
+		for (Game position : positions)
+			position.setEngine(engine);
+	}
+
+	// Every invocation searches the whole corpus, which is slow enough for a per invocation set up to be measured fairly
+	@Setup(Level.Invocation)
+	public void clearEngine()
+	{
+		engine.clear();
+	}
+
+	@Benchmark
+	public int nextAIMove()
+	{
+		int moves = 0;
+		for (Game position : positions)
+			moves += position.nextAIMove();
+		return moves;
+	}
+}
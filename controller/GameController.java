@@ -5,10 +5,18 @@ import javafx.event.ActionEvent;
 import javafx.event.EventHandler;
 import javafx.scene.Node;
 import javafx.scene.control.Button;
+import model.Engine;
 import model.Game;
+import model.GameState;
+import model.StopToken;
 import view.GameBoard;
 
 import java.util.ArrayList;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
 
 
 /**
@@ -23,6 +31,45 @@ public class GameController{
      * The model of the game
      */
     private Game game;
+    /**
+     * A snapshot of the model, replaced after every change to it. The view's thread and the AI read this
+     * instead of the game, which only the thread playing a move changes.
+     */
+    private volatile GameState state;
+    /**
+     * The engine that chooses the AI's moves
+     */
+    private final Engine engine = Engine.createDefault();
+    /**
+     * Plays the turns one at a time, off the main thread as they wait for their animations
+     */
+    private final ExecutorService turnExecutor = Executors.newSingleThreadExecutor(daemonThreads("oware-turn"));
+    /**
+     * Searches for the AI's moves one at a time
+     */
+    private final ExecutorService aiExecutor = Executors.newSingleThreadExecutor(daemonThreads("oware-ai"));
+    /**
+     * The AI move being searched for, or null, and the token that stops its search
+     */
+    private volatile CompletableFuture<Integer> pendingAIMove;
+    private volatile StopToken pendingAIStop;
+    /**
+     * Counts the resets. A turn, AI move or view update belongs to the game of the generation it started in,
+     * and is dropped once the game has been reset.
+     */
+    private volatile int generation;
+    /**
+     * Held while the game or the board is changed, so that a reset and a turn's steps never interleave
+     */
+    private final Object turnLock = new Object();
+    /**
+     * The turns queued or being played. Clicks are ignored until they are done
+     */
+    private final AtomicInteger pendingTurns = new AtomicInteger();
+    /**
+     * Whether player 2 is the AI in the game being played
+     */
+    private volatile boolean againstAI;
 
     /**
      * Builds a new controller
@@ -43,32 +90,32 @@ public class GameController{
          */
         gameBoard.setPlayerOptionHandler(event -> {
             Button button = (Button) event.getSource();
-            this.game = new Game(button.getUserData().equals("CPU"));
+            againstAI = button.getUserData().equals("CPU");
+            synchronized (turnLock) {
+                this.game = new Game(againstAI);
+                publishState();
+            }
             gameBoard.switchToGame();
             gameBoard.setTurnLabel(game.getPlayerTurn() + 1);
             if (game.isAITurn())
             {
-                new Thread()
-                {
-                    public void run()
-                    {
-                        sowAndCapture(game.nextAIMove());
-                    }
-                }.start();
+                requestAIMove(generation);
             }
         });
 
         /**
-         * This action listener receives in the userData the houseId of the house clicked. If the game is finished
-         * or if animations are performing the action is ignored.
+         * This action listener receives in the userData the houseId of the house clicked. If the game is finished,
+         * if animations are performing, if a turn is still to be played or if it is the AI's turn the action is ignored.
          */
         gameBoard.setHouseHandler(event -> {
-            if(gameBoard.isAnimating() || game.hasEnded()) return;
+            GameState current = state;
+            if(gameBoard.isAnimating() || current.hasEnded() || pendingTurns.get() > 0) return;
+            if(againstAI && current.getPlayerTurn() == 1) return;
 
             Object houseUserData = ((Node)event.getSource()).getUserData();
             int houseNumber = (Integer) houseUserData;
 
-            if(game.canSow(houseNumber)) {
+            if(current.canSow(houseNumber)) {
                 sowAndCapture(houseNumber);
             }
         });
@@ -76,74 +123,157 @@ public class GameController{
         gameBoard.setGameOptionHandler(event -> {
             Button button = (Button) event.getSource();
             if(button.getUserData().equals("Reset")) {
-                game.reset();
-                gameBoard.reset();
+                synchronized (turnLock) {
+                    generation++;
+                    cancelAIMove();
+                    game.reset();
+                    publishState();
+                    gameBoard.reset();
+                }
             }
         });
     }
 
     /**
      * Sow a house and then capture possible houses after the sow is finished.
-     * In addition, if the model returns an action from the AI rerun the method for that action.
-     * This method starts a new thread as we need to perform Thread.sleep() in order to wait for the animations to finish
-     * before starting a new animation.
+     * In addition, if it is then the AI's turn, asks the AI for its move.
+     * The turn is played on the turn executor as it blocks while waiting for the animations to finish
+     * before starting a new animation. After every wait the rest of the turn is dropped if the game was reset.
      * At the end of capturing and sowing, the method also checks for a winner/ draw.
      * @param houseNumber the house that will be sowed
      */
     private void sowAndCapture(int houseNumber) {
-        Thread animThread = new Thread() {
-            public void run() {
-                sow(houseNumber);
+        int turnGeneration = generation;
+        pendingTurns.incrementAndGet();
+        turnExecutor.execute(() -> {
+            try {
+                playTurn(houseNumber, turnGeneration);
+            } finally {
+                pendingTurns.decrementAndGet();
+            }
+        });
+    }
 
-                /**
-                 * We need for sow animations before starting the capture animations
-                 */
-                waitForAnimations();
+    /**
+     * Plays a turn of the given generation. Should not be called on Main Thread.
+     * The turn is dropped if the house can no longer be sown by the time it is played.
+     */
+    private void playTurn(int houseNumber, int turnGeneration) {
+        waitForAnimations();
+        synchronized (turnLock) {
+            if(generation != turnGeneration || !game.canSow(houseNumber)) return;
+            sow(houseNumber);
+        }
 
-                capture();
+        /**
+         * We need for sow animations before starting the capture animations
+         */
+        waitForAnimations();
 
-		game.nextTurn();
-                Platform.runLater(() -> gameBoard.setTurnLabel(game.getPlayerTurn() + 1));
+        synchronized (turnLock) {
+            if(generation != turnGeneration) return;
+            capture();
+            game.nextTurn();
+            publishState();
+            int playerTurn = game.getPlayerTurn() + 1;
+            updateView(turnGeneration, () -> gameBoard.setTurnLabel(playerTurn));
 
-                if(checkForEndOfGame() != -1) {
-                    waitForAnimations();
-                    Platform.runLater(() -> gameBoard.setWinner(checkForEndOfGame()));
-                }
-                else if(!game.canSowAny()) {
-                    captureAll();
-                    waitForAnimations();
-                    if (checkForEndOfGame() == -1)
-                    {
-                        Platform.runLater(() -> gameBoard.setTurnLabel(game.getPlayerTurn() + 1));
-                        game.nextTurn();
-                    }
-                    else
-                        Platform.runLater(() -> gameBoard.setWinner(checkForEndOfGame()));
-                } else if (game.isAITurn()) {
-                    waitForAnimations();
-                    sowAndCapture(game.nextAIMove());
+            if(checkForEndOfGame() == -1) {
+                if(game.legalMoves() != 0) {
+                    if(game.isAITurn()) requestAIMove(turnGeneration);
+                    return;
                 }
+                captureAll();
+            }
+        }
+
+        /**
+         * The game has ended, or the player to move could not and the seeds left were captured
+         */
+        waitForAnimations();
 
-		
+        synchronized (turnLock) {
+            if(generation != turnGeneration) return;
+            int endOfGame = checkForEndOfGame();
+            if(endOfGame == -1) {
+                game.nextTurn();
+                int playerTurn = game.getPlayerTurn() + 1;
+                updateView(turnGeneration, () -> gameBoard.setTurnLabel(playerTurn));
             }
-        };
+            else
+                updateView(turnGeneration, () -> gameBoard.setWinner(endOfGame));
+            publishState();
+        }
+    }
 
-        animThread.start();
+    /**
+     * Updates the view on the main thread, unless the game has been reset since the given generation
+     */
+    private void updateView(int turnGeneration, Runnable update) {
+        Platform.runLater(() -> {
+            if(generation == turnGeneration) update.run();
+        });
     }
 
     /**
-     * Helper method to avoid repetitions. Should not be called on Main Thread.
+     * Starts searching for the AI's move on a copy of the current snapshot, so the search never sees the game
+     * change under it. The move is handed back to the main thread, and played only if the game has not moved on,
+     * such as by a reset, meanwhile.
+     * @param turnGeneration the generation of the game the AI is to move in
      */
-    private void waitForAnimations() {
-        while(gameBoard.isAnimating()) {
-            try {
-                Thread.sleep(20);
-            } catch (InterruptedException e) {
-                e.printStackTrace();
+    private void requestAIMove(int turnGeneration) {
+        GameState searched = state;
+        StopToken stopToken = new StopToken();
+        CompletableFuture<Integer> aiMove = CompletableFuture.supplyAsync(() -> engine.bestMove(searched.toGame(false), stopToken), aiExecutor);
+        pendingAIStop = stopToken;
+        pendingAIMove = aiMove;
+        aiMove.thenAccept(houseNumber -> Platform.runLater(() -> {
+            if(generation == turnGeneration && state == searched && houseNumber != -1) {
+                sowAndCapture(houseNumber);
             }
+        }));
+    }
+
+    /**
+     * Cancels the AI move being searched for, if any. A search that has not started never runs, and one that
+     * has is stopped by its token at the engine's next check. Called holding the turn lock, so no turn can ask
+     * for another move meanwhile.
+     */
+    private void cancelAIMove() {
+        CompletableFuture<Integer> aiMove = pendingAIMove;
+        pendingAIMove = null;
+        if(aiMove != null && !aiMove.isDone()) {
+            aiMove.cancel(false);
+            pendingAIStop.stop();
         }
     }
 
+    /**
+     * Makes threads that do not keep the application running once its window is closed
+     */
+    private static ThreadFactory daemonThreads(String name) {
+        return runnable -> {
+            Thread thread = new Thread(runnable, name);
+            thread.setDaemon(true);
+            return thread;
+        };
+    }
+
+    /**
+     * Publishes a new snapshot of the game. Called by whichever thread last changed the game.
+     */
+    private void publishState() {
+        state = GameState.of(game);
+    }
+
+    /**
+     * Helper method to avoid repetitions. Blocks until the board tells us its animations have finished,
+     * so should not be called on Main Thread.
+     */
+    private void waitForAnimations() {
+        gameBoard.whenAnimationsFinished().join();
+    }
+
     /**
      * Helper method that returns whether the game has ended
      * @return -1 if the game has not ended, 0 if the game has ended in a draw, 1 or 2 if player 1/2 won
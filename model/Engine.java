@@ -0,0 +1,48 @@
+package model;
+
+import java.time.Duration;
+
+/**
+ * An AI that picks which house to sow.
+ */
+public interface Engine
+{
+	/**
+	 * Deduces the best house for the current player of the specified game to sow,
+	 * using the engine's default effort. The game passed in is left untouched.
+	 *
+	 * @return The house ID of the house to sow, or -1 if no house can be sown.
+	 */
+	int bestMove(Game game);
+
+	/**
+	 * Deduces the best house for the current player of the specified game to sow
+	 * within a time budget. The game passed in is left untouched.
+	 *
+	 * @return The house ID of the house to sow, or -1 if no house can be sown.
+	 */
+	int bestMove(Game game, Duration timeBudget);
+
+	/**
+	 * Deduces the best house for the current player of the specified game to sow,
+	 * using the engine's default effort, but returns as soon as it can once the token
+	 * is stopped, with the best move found so far. The game passed in is left untouched.
+	 *
+	 * @return The house ID of the house to sow, or -1 if no house can be sown or none was
+	 * found before the token was stopped.
+	 */
+	int bestMove(Game game, StopToken stopToken);
+
+	/**
+	 * Creates the engine named by the oware.engine system property: "mcts" for
+	 * Monte Carlo tree search, otherwise alpha-beta search.
+	 *
+	 * @return a new engine.
+	 */
+	static Engine createDefault()
+	{
+		if ("mcts".equals(System.getProperty("oware.engine")))
+			return new MonteCarloEngine();
+		return new SearchEngine();
+	}
+}
@@ -1,20 +1,34 @@
 package model;
+import java.time.Duration;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.HashMap;
 import java.util.IntSummaryStatistics;
 import java.util.Random;
 
 public class Game
 {
-	private static final int NUMBER_OF_HOUSES = 12, AI_ANALYSIS_MAXDEPTH = 8, SEEDS_REQUIRED_TO_WIN = 25;
+	private static final int NUMBER_OF_HOUSES = 12, SEEDS_REQUIRED_TO_WIN = 25,
+		STARTING_SEEDS_PER_HOUSE = 4, UNDO_STACK_SIZE = 1024;
 
-	private House[] houses;
-	private ArrayList<Integer> incrementedHouses;
+	// Seed counts are kept packed as primitives so that copying a game is a couple of array copies.
+	// There are only 48 seeds in play, so a byte per house is always enough.
+	private final byte[] seeds = new byte[NUMBER_OF_HOUSES];
+	private int lastSownHouse, lastSownCount; // where the last seed of the last sow() landed and how many seeds it sowed, until the next turn
 	private int playerTurn;
 	private int[] score;
 	private boolean isPlayingAgainstAI; // player 2 will always be AI if this is true
+	private long hash; // Zobrist hash of the seeds, scores and player turn, kept up to date by every change
+	private final int[] sideSeeds = new int[2]; // seeds on each player's side, kept up to date by every change
 
 	private Random random;
+	private Engine engine;
+
+	// Undo stack for makeMove/unmakeMove, used as a ring so that the oldest moves are forgotten once it is full.
+	// Each entry packs the sown house (bits 0-3), the number of seeds sown (bits 4-9), the captured houses
+	// (bits 10-21) and which of those held three seeds rather than two (bits 22-33).
+	private long[] undoStack;
+	private int undoTop, undoCount;
 
 	//playerTurn=0 -> 0-5 in array
 	//playerTurn=1 -> 6-11 in array
@@ -41,17 +55,13 @@ public class Game
 	{
 		this.isPlayingAgainstAI = game.isPlayingAgainstAI;
 		score = new int[] { game.score[0], game.score[1] };
-		houses = new House[NUMBER_OF_HOUSES];
-		for (int i = 0; i < NUMBER_OF_HOUSES; i++)
-		{
-			houses[i] = new House(game.houses[i]);
-		}
+		System.arraycopy(game.seeds, 0, seeds, 0, NUMBER_OF_HOUSES);
 		playerTurn = game.playerTurn;
-		incrementedHouses = new ArrayList<Integer>();
-		for (Integer i : game.incrementedHouses)
-		{
-			incrementedHouses.add(new Integer(i));
-		}
+		hash = game.hash;
+		sideSeeds[0] = game.sideSeeds[0];
+		sideSeeds[1] = game.sideSeeds[1];
+		lastSownHouse = game.lastSownHouse;
+		lastSownCount = game.lastSownCount;
 	}
 
 	/**
@@ -59,13 +69,48 @@ public class Game
 	 */
 	public void reset() {
 		score = new int[] { 0, 0 };
-		houses = new House[NUMBER_OF_HOUSES];
-		for(int i = 0; i < NUMBER_OF_HOUSES; i++) {
-			houses[i] = new House();
-		}
+		Arrays.fill(seeds, (byte) STARTING_SEEDS_PER_HOUSE);
 		random = new Random();
 		playerTurn = random.nextInt(2);
-		incrementedHouses = new ArrayList<Integer>();
+		lastSownHouse = -1;
+		undoTop = 0;
+		undoCount = 0;
+		hash = computeHash();
+		countSideSeeds();
+	}
+
+	/**
+	 * Sets up the game at an arbitrary position. The move history is cleared.
+	 *
+	 * @param houseSeeds the number of seeds in each of the twelve houses
+	 * @param playerZeroScore the number of seeds player 0 has captured
+	 * @param playerOneScore the number of seeds player 1 has captured
+	 * @param playerTurn the player to move
+	 * @throws IllegalArgumentException if the position is not a possible position of the game.
+	 */
+	public void setPosition(int[] houseSeeds, int playerZeroScore, int playerOneScore, int playerTurn)
+	{
+		int total = playerZeroScore + playerOneScore;
+		for (int i = 0; i < NUMBER_OF_HOUSES; i++)
+		{
+			if (houseSeeds[i] < 0)
+				throw new IllegalArgumentException("House " + i + " has a negative seed count");
+			total += houseSeeds[i];
+		}
+		if (playerZeroScore < 0 || playerOneScore < 0 || total > NUMBER_OF_HOUSES * STARTING_SEEDS_PER_HOUSE)
+			throw new IllegalArgumentException("A position can hold at most " + NUMBER_OF_HOUSES * STARTING_SEEDS_PER_HOUSE + " seeds");
+		if (playerTurn != 0 && playerTurn != 1)
+			throw new IllegalArgumentException("The player turn must be 0 or 1");
+		for (int i = 0; i < NUMBER_OF_HOUSES; i++)
+			seeds[i] = (byte) houseSeeds[i];
+		score[0] = playerZeroScore;
+		score[1] = playerOneScore;
+		this.playerTurn = playerTurn;
+		lastSownHouse = -1;
+		undoTop = 0;
+		undoCount = 0;
+		hash = computeHash();
+		countSideSeeds();
 	}
 
 	/**
@@ -83,7 +128,8 @@ public class Game
 	public void nextTurn()
 	{
 		playerTurn = (playerTurn + 1) % 2;
-		incrementedHouses.clear();
+		hash ^= Zobrist.TURN_KEY;
+		lastSownHouse = -1;
 	}
 
 	/**
@@ -93,37 +139,112 @@ public class Game
 	 */
 	public int nextAIMove()
 	{
-		return bestHouseToSow(this, AI_ANALYSIS_MAXDEPTH);
+		if (engine == null)
+			engine = Engine.createDefault();
+		return engine.bestMove(this);
+	}
+
+	/**
+	 * Deduces the next move that the AI wishes to perform, searching as deep
+	 * as the specified time allows.
+	 *
+	 * @return The house ID of the house to sow.
+	 */
+	public int nextAIMove(Duration timeBudget)
+	{
+		if (engine == null)
+			engine = Engine.createDefault();
+		return engine.bestMove(this, timeBudget);
 	}
 
-	private static int bestHouseToSow(Game game, int maxDepth)
+	/**
+	 * Sets the engine the AI uses to deduce its moves.
+	 *
+	 * @param engine the engine, or null to use the default engine.
+	 */
+	public void setEngine(Engine engine)
 	{
-		if (maxDepth == 0 || !game.canSowAny())
-			return -1;
-		int startingHouse;
-		if (game.playerTurn == 0)
-			startingHouse = 0;
-		else
-			startingHouse = NUMBER_OF_HOUSES / 2;
-		int maxScore = -1, maxScoreHouse = -1;
-		for (int i = startingHouse; i < startingHouse + (NUMBER_OF_HOUSES / 2); i++)
+		this.engine = engine;
+	}
+
+	/**
+	 * Plays a full turn in place: sows the specified house, captures where
+	 * appropriate and advances to the next turn. The move can be taken back
+	 * with unmakeMove(). No objects are allocated once the undo stack exists.
+	 *
+	 * @param houseID a house that the current player can sow.
+	 */
+	public void makeMove(int houseID)
+	{
+		if (undoStack == null)
+			undoStack = new long[UNDO_STACK_SIZE];
+
+		int number = seeds[houseID];
+		spread(houseID, number, 1);
+
+		int capturedMask = capturableHouses(SowingTable.landing(houseID, number), number), threeMask = 0;
+		for (int i = 0; i < NUMBER_OF_HOUSES; i++)
 		{
-			if (!game.canSow(i))
+			if ((capturedMask & (1 << i)) != 0 && seeds[i] == 3)
+				threeMask |= 1 << i;
+		}
+		take(capturedMask);
+
+		undoStack[undoTop] = houseID | ((long) number << 4) | ((long) capturedMask << 10) | ((long) threeMask << 22);
+		undoTop = (undoTop + 1) % UNDO_STACK_SIZE;
+		if (undoCount < UNDO_STACK_SIZE)
+			undoCount++;
+		nextTurn();
+	}
+
+	/**
+	 * Takes back the last move played with makeMove(), restoring the board,
+	 * the scores and the player turn.
+	 *
+	 * @throws IllegalStateException if there is no move to take back.
+	 */
+	public void unmakeMove()
+	{
+		if (undoCount == 0)
+			throw new IllegalStateException("No move to unmake");
+		undoTop = (undoTop + UNDO_STACK_SIZE - 1) % UNDO_STACK_SIZE;
+		undoCount--;
+		long entry = undoStack[undoTop];
+		int houseID = (int) (entry & 0xF),
+			number = (int) ((entry >>> 4) & 0x3F),
+			capturedMask = (int) ((entry >>> 10) & 0xFFF),
+			threeMask = (int) ((entry >>> 22) & 0xFFF);
+
+		nextTurn();
+		for (int i = 0; i < NUMBER_OF_HOUSES; i++)
+		{
+			if ((capturedMask & (1 << i)) == 0)
 				continue;
-			Game currentGame = new Game(game);
-			currentGame.sow(i);
-			currentGame.capture();
-			int currentGamePlayer = currentGame.playerTurn;
-			currentGame.nextTurn();
-			bestHouseToSow(currentGame, maxDepth - 1);
-			int score = currentGame.score[currentGamePlayer];
-			if (score > maxScore)
-			{
-				maxScore = score;
-				maxScoreHouse = i;
-			}
+			int seedCount = (threeMask & (1 << i)) != 0 ? 3 : 2;
+			setSeeds(i, seedCount);
+			addScore(playerTurn, -seedCount);
 		}
-		return maxScoreHouse;
+
+		spread(houseID, number, -1);
+	}
+
+	/**
+	 * Looks at whether sowing the specified house ends in a capture, without sowing it.
+	 * Only the house the last seed lands in is checked, and the rule against capturing
+	 * all of the opponent's seeds is ignored, so this is only a cheap estimate.
+	 *
+	 * @return the number of seeds in the house the last seed lands in if it would be captured, otherwise 0.
+	 */
+	public int previewCapture(int houseID)
+	{
+		int number = seeds[houseID];
+		if (number == 0)
+			return 0;
+		int landing = SowingTable.landing(houseID, number);
+		int seedCount = seeds[landing] + SowingTable.increment(houseID, number, landing);
+		if (houseOwner(landing) != playerTurn && (seedCount == 2 || seedCount == 3))
+			return seedCount;
+		return 0;
 	}
 
 	/**
@@ -133,12 +254,12 @@ public class Game
 	 */
 	public boolean canSow(int houseID)
 	{
-		return houseOwner(houseID) == playerTurn && houses[houseID].getSeedCount() > 0 && canHelpIfNoSeeds(houseID);
+		return houseOwner(houseID) == playerTurn && seeds[houseID] > 0 && canHelpIfNoSeeds(houseID);
 	}
 	
 	private boolean canHelpIfNoSeeds(int houseID){
 		if(numberOfOpponentsSeeds()==0){
-			int number = houses[houseID].getSeedCount();
+			int number = seeds[houseID];
 			int current = houseID;
 			int distanceFromEdge = current%6;
 
@@ -155,12 +276,26 @@ public class Game
 	 * ~return true if there exists a house where seeds can be sown from.
 	*/
 	public boolean canSowAny(){
-		for(int i = 0; i < 12; i++){
-			if(canSow(i)){
-				return true;
-			}
-		}
-		return false;
+		// Any seed can be sown unless the opponent has none and must be given some
+		if (numberOfOpponentsSeeds() != 0)
+			return numberOfPlayersSeeds() != 0;
+		return legalMoves() != 0;
+	}
+
+	/**
+	 * Finds every house the current player can sow, including the rule that an opponent
+	 * with no seeds must be given some.
+	 *
+	 * @return a mask with bit i set when the current player's i-th house, house playerTurn * 6 + i, can be sown.
+	 */
+	public int legalMoves()
+	{
+		int startingHouse = playerTurn * (NUMBER_OF_HOUSES / 2);
+		// A house i places from the edge reaches the opponent with more than i seeds
+		int feedingStep = numberOfOpponentsSeeds() == 0 ? 1 : 0, legalMoves = 0;
+		for (int i = 0; i < NUMBER_OF_HOUSES / 2; i++)
+			legalMoves |= ((i * feedingStep - seeds[startingHouse + i]) >>> 31) << i;
+		return legalMoves;
 	}
 	
 	/**
@@ -169,20 +304,23 @@ public class Game
 	 * @return The houses where seeds were captured from.
 	 */
 	public ArrayList<Integer> captureAll(){
-		ArrayList<Integer> captured = new ArrayList<Integer>();
-		int startingHouse;
-		if (playerTurn == 0)
-			startingHouse = 0;
-		else
-			startingHouse = NUMBER_OF_HOUSES / 2;
+		return houseList(captureAllHouses());
+	}
+
+	/**
+	 * Captures all seeds from houses on the players side, without allocating.
+	 *
+	 * @return a mask with bit i set for each house i captured from.
+	 */
+	public int captureAllHouses()
+	{
+		int startingHouse = playerTurn * (NUMBER_OF_HOUSES / 2), captured = 0;
 		for (int i = startingHouse; i < startingHouse + (NUMBER_OF_HOUSES / 2); i++)
 		{
-			if (houses[i].getSeedCount() == 0)
-				continue;
-			captured.add(i);
-			score[playerTurn] += houses[i].getSeedCount();
-			houses[i].clear();
+			if (seeds[i] != 0)
+				captured |= 1 << i;
 		}
+		take(captured);
 		return captured;
 	}
 	
@@ -190,20 +328,33 @@ public class Game
 	 * Sowes the seeds for the specified house
 	 */
 	public void sow(int houseID){
-		int number = houses[houseID].getSeedCount();
-		houses[houseID].clear();
-			
-		int current = houseID;
-		for(int i = 0; i < number; i++){
-			do
-			{
-				current--;
-				if (current < 0) current = 11;
-			} while (current == houseID);
+		int number = seeds[houseID];
+		spread(houseID, number, 1);
+		lastSownHouse = SowingTable.landing(houseID, number);
+		lastSownCount = number;
+	}
 
-			houses[current].incrementSeedCount();
-			incrementedHouses.add(current);
+	/**
+	 * Moves the specified number of seeds from the origin house to the houses they are sown into,
+	 * or back again when the direction is -1.
+	 */
+	private void spread(int origin, int number, int direction)
+	{
+		for (int i = 0; i < NUMBER_OF_HOUSES; i++)
+		{
+			int increment = SowingTable.increment(origin, number, i);
+			if (increment != 0)
+				setSeeds(i, seeds[i] + direction * increment);
 		}
+		setSeeds(origin, direction == 1 ? 0 : number);
+	}
+
+	/**
+	 * @return the house the last seed of the last sow() landed in, or -1 if nothing has been sown this turn.
+	 */
+	public int getLastSownHouse()
+	{
+		return lastSownHouse;
 	}
 
 	/**
@@ -213,31 +364,104 @@ public class Game
 	*/
 	public ArrayList<Integer> capture()
 	{
-		ArrayList<Integer> housesToCapture = new ArrayList<Integer>();
-		int seedsToCapture = 0;
+		return houseList(captureHouses());
+	}
+
+	/**
+	 * Captures seeds from opponents houses where appropriate, without allocating.
+	 *
+	 * @return a mask with bit i set for each house i captured from.
+	 */
+	public int captureHouses()
+	{
+		if (lastSownHouse == -1)
+			return 0;
+		int captured = capturableHouses(lastSownHouse, lastSownCount);
+		take(captured);
+		return captured;
+	}
+
+	/**
+	 * Walks back over the sown houses from the one the last seed landed in, for as long as they are the
+	 * opponent's and hold two or three seeds. A lap of the board skips the house sown from, so at most
+	 * eleven houses are walked.
+	 *
+	 * @return a mask of the houses walked, or 0 if they hold all of the opponent's seeds.
+	 */
+	private int capturableHouses(int lastHouse, int sownCount)
+	{
+		int captured = 0, seedsToCapture = 0, current = lastHouse;
+		int sownHouses = Math.min(sownCount, NUMBER_OF_HOUSES - 1);
+		for (int i = 0; i < sownHouses; i++)
+		{
+			int seedCount = seeds[current];
+			if (houseOwner(current) == playerTurn || (seedCount != 2 && seedCount != 3))
+				break;
+			captured |= 1 << current;
+			seedsToCapture += seedCount;
+			current = (current + 1) % NUMBER_OF_HOUSES;
+		}
+		if (seedsToCapture == numberOfOpponentsSeeds())
+			return 0;
+		return captured;
+	}
 
-		for (int i = incrementedHouses.size() - 1; i >= 0; i--)
+	// Moves the seeds in the houses of the mask to the current player's score
+	private void take(int houses)
+	{
+		int seedsTaken = 0;
+		for (int i = 0; i < NUMBER_OF_HOUSES; i++)
 		{
-			int houseID = incrementedHouses.get(i),
-				seedCount = houses[houseID].getSeedCount();
-			if (houseOwner(houseID)!=playerTurn && (seedCount == 2 || seedCount == 3))
+			if ((houses & (1 << i)) != 0)
 			{
-				housesToCapture.add(houseID);
-				seedsToCapture += houses[houseID].getSeedCount();
+				seedsTaken += seeds[i];
+				setSeeds(i, 0);
 			}
-			else
-				break;
 		}
+		if (seedsTaken != 0)
+			addScore(playerTurn, seedsTaken);
+	}
 
-		if(seedsToCapture!=numberOfOpponentsSeeds()){
-			for(int n: housesToCapture){
-				score[playerTurn] += houses[n].getSeedCount();
-				houses[n].clear();
-			}
-			return housesToCapture;
+	private static ArrayList<Integer> houseList(int houses)
+	{
+		ArrayList<Integer> list = new ArrayList<Integer>(Integer.bitCount(houses));
+		for (int i = 0; i < NUMBER_OF_HOUSES; i++)
+		{
+			if ((houses & (1 << i)) != 0)
+				list.add(i);
 		}
-		housesToCapture.clear();
-		return housesToCapture;
+		return list;
+	}
+
+	private void setSeeds(int houseID, int seedCount)
+	{
+		hash ^= Zobrist.house(houseID, seeds[houseID]) ^ Zobrist.house(houseID, seedCount);
+		sideSeeds[houseOwner(houseID)] += seedCount - seeds[houseID];
+		seeds[houseID] = (byte) seedCount;
+	}
+
+	private void countSideSeeds()
+	{
+		sideSeeds[0] = 0;
+		sideSeeds[1] = 0;
+		for (int i = 0; i < NUMBER_OF_HOUSES; i++)
+			sideSeeds[houseOwner(i)] += seeds[i];
+	}
+
+	private void addScore(int player, int seedCount)
+	{
+		hash ^= Zobrist.score(player, score[player]) ^ Zobrist.score(player, score[player] + seedCount);
+		score[player] += seedCount;
+	}
+
+	private long computeHash()
+	{
+		long h = Zobrist.score(0, score[0]) ^ Zobrist.score(1, score[1]);
+		for (int i = 0; i < NUMBER_OF_HOUSES; i++)
+			h ^= Zobrist.house(i, seeds[i]);
+		if (playerTurn == 1)
+			h ^= Zobrist.TURN_KEY;
+		return h;
 	}
 
 	private int houseOwner(int houseID)
@@ -296,26 +520,54 @@ public class Game
 
 	private int numberOfOpponentsSeeds()
 	{
-		int opponent;
-		if (playerTurn == 0)
-			opponent = 1;
-		else
-			opponent = 0;
-		return playerSeedCount(opponent);
+		return sideSeeds[1 - playerTurn];
 	}
 
-	private int playerSeedCount(int player)
+	int playerSeedCount(int player)
 	{
-		int seeds = 0, startingHouse;
-		if (player == 0)
-			startingHouse = 0;
-		else
-			startingHouse = NUMBER_OF_HOUSES / 2;
-		for (int i = startingHouse; i < startingHouse + (NUMBER_OF_HOUSES / 2); i++)
-		{
-			seeds += houses[i].getSeedCount();
-		}
-		return seeds;
+		return sideSeeds[player];
+	}
+
+	/**
+	 * Get the Zobrist hash of the position. Games with the same seeds, scores
+	 * and player turn have the same hash, however they were reached.
+	 *
+	 * @return the hash of the position.
+	 */
+	public long getHash()
+	{
+		return hash;
+	}
+
+	/**
+	 * Get the number of seeds the specified player has captured.
+	 *
+	 * @return the score of the player.
+	 */
+	public int getScore(int player)
+	{
+		return score[player];
+	}
+
+	/**
+	 * Get the number of seeds currently in the specified house.
+	 *
+	 * @return the seed count of the house.
+	 */
+	public int getSeedCount(int houseID)
+	{
+		return seeds[houseID];
+	}
+
+	/**
+	 * Get a view of the specified house. The returned house is a snapshot and
+	 * changing it does not affect the game.
+	 *
+	 * @return a house holding the current seed count of the specified house.
+	 */
+	public House getHouse(int houseID)
+	{
+		return new House(seeds[houseID]);
 	}
 
 	/**
@@ -328,7 +580,7 @@ public class Game
 		String r = "";
 		for (int i = (NUMBER_OF_HOUSES / 2) - 1; i >= 0; i--)
 		{
-			int seedCount = houses[i].getSeedCount();
+			int seedCount = seeds[i];
 			if (seedCount < 10)
 				r += " ";
 			r += seedCount;
@@ -338,7 +590,7 @@ public class Game
 		r += "\n";
 		for (int i = NUMBER_OF_HOUSES / 2; i < NUMBER_OF_HOUSES; i++)
 		{
-			int seedCount = houses[i].getSeedCount();
+			int seedCount = seeds[i];
 			if (seedCount < 10)
 				r += " ";
 			r += seedCount;
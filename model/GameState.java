@@ -0,0 +1,240 @@
+package model;
+
+import java.util.Arrays;
+
+/**
+ * An immutable position of the game: the seeds in every house, both scores and the player to move,
+ * packed into two primitive fields. States never change once made, so one can be handed to any
+ * thread, or published through a volatile field, without locks or copies. Playing a move makes a
+ * new state with apply().
+ *
+ * States follow the same rules as Game, and a state and a game in the same position have the same
+ * hash.
+ */
+public final class GameState
+{
+	private static final int NUMBER_OF_HOUSES = 12, HOUSES_PER_SIDE = 6, STARTING_SEEDS_PER_HOUSE = 4,
+		SEEDS_REQUIRED_TO_WIN = 25, BITS_PER_HOUSE = 6, HOUSES_IN_BOARD = 10;
+	private static final int FIELD_MASK = (1 << BITS_PER_HOUSE) - 1;
+	// Bits of the rest field after the last two houses
+	private static final int SCORE_SHIFT = 2 * BITS_PER_HOUSE, TURN_SHIFT = SCORE_SHIFT + 2 * BITS_PER_HOUSE;
+
+	// Houses 0 to 9, six bits each
+	private final long board;
+	// Houses 10 and 11, then the two scores, six bits each, then the player turn
+	private final int rest;
+	private final long hash;
+
+	private GameState(int[] seeds, int playerZeroScore, int playerOneScore, int playerTurn)
+	{
+		long board = 0;
+		for (int i = 0; i < HOUSES_IN_BOARD; i++)
+			board |= (long) seeds[i] << (i * BITS_PER_HOUSE);
+		this.board = board;
+		this.rest = seeds[10] | seeds[11] << BITS_PER_HOUSE | playerZeroScore << SCORE_SHIFT
+			| playerOneScore << (SCORE_SHIFT + BITS_PER_HOUSE) | playerTurn << TURN_SHIFT;
+
+		long hash = Zobrist.score(0, playerZeroScore) ^ Zobrist.score(1, playerOneScore);
+		for (int i = 0; i < NUMBER_OF_HOUSES; i++)
+			hash ^= Zobrist.house(i, seeds[i]);
+		if (playerTurn == 1)
+			hash ^= Zobrist.TURN_KEY;
+		this.hash = hash;
+	}
+
+	/**
+	 * @return the starting position, with the specified player to move.
+	 */
+	public static GameState initial(int playerTurn)
+	{
+		if (playerTurn != 0 && playerTurn != 1)
+			throw new IllegalArgumentException("The player turn must be 0 or 1");
+		int[] seeds = new int[NUMBER_OF_HOUSES];
+		Arrays.fill(seeds, STARTING_SEEDS_PER_HOUSE);
+		return new GameState(seeds, 0, 0, playerTurn);
+	}
+
+	/**
+	 * @return a state in the same position as the specified game.
+	 */
+	public static GameState of(Game game)
+	{
+		int[] seeds = new int[NUMBER_OF_HOUSES];
+		for (int i = 0; i < NUMBER_OF_HOUSES; i++)
+			seeds[i] = game.getSeedCount(i);
+		return new GameState(seeds, game.getScore(0), game.getScore(1), game.getPlayerTurn());
+	}
+
+	/**
+	 * @return a new game in this position, for code that works on a Game, such as the engines.
+	 */
+	public Game toGame(boolean isPlayingAgainstAI)
+	{
+		int[] seeds = new int[NUMBER_OF_HOUSES];
+		for (int i = 0; i < NUMBER_OF_HOUSES; i++)
+			seeds[i] = getSeedCount(i);
+		Game game = new Game(isPlayingAgainstAI);
+		game.setPosition(seeds, getScore(0), getScore(1), getPlayerTurn());
+		return game;
+	}
+
+	/**
+	 * Plays a full turn: sows the specified house, captures where appropriate and passes the turn.
+	 *
+	 * @return the state after the move.
+	 * @throws IllegalArgumentException if the current player cannot sow the house.
+	 */
+	public GameState apply(int houseID)
+	{
+		if (!canSow(houseID))
+			throw new IllegalArgumentException("House " + houseID + " cannot be sown");
+		int playerTurn = getPlayerTurn();
+		int[] seeds = new int[NUMBER_OF_HOUSES];
+		for (int i = 0; i < NUMBER_OF_HOUSES; i++)
+			seeds[i] = getSeedCount(i) + SowingTable.increment(houseID, getSeedCount(houseID), i);
+		int number = seeds[houseID];
+		seeds[houseID] = 0;
+
+		// Walk back from the last seed over the opponent's houses holding two or three seeds
+		int current = SowingTable.landing(houseID, number), captured = 0, capturedMask = 0;
+		for (int i = 0; i < Math.min(number, NUMBER_OF_HOUSES - 1); i++)
+		{
+			if (current / HOUSES_PER_SIDE == playerTurn || (seeds[current] != 2 && seeds[current] != 3))
+				break;
+			captured += seeds[current];
+			capturedMask |= 1 << current;
+			current = (current + 1) % NUMBER_OF_HOUSES;
+		}
+		// Taking all of the opponent's seeds captures nothing
+		if (captured == sideSeeds(seeds, 1 - playerTurn))
+			captured = 0;
+		else
+		{
+			for (int i = 0; i < NUMBER_OF_HOUSES; i++)
+			{
+				if ((capturedMask & (1 << i)) != 0)
+					seeds[i] = 0;
+			}
+		}
+
+		int playerZeroScore = getScore(0) + (playerTurn == 0 ? captured : 0);
+		int playerOneScore = getScore(1) + (playerTurn == 1 ? captured : 0);
+		return new GameState(seeds, playerZeroScore, playerOneScore, 1 - playerTurn);
+	}
+
+	private static int sideSeeds(int[] seeds, int player)
+	{
+		int seedCount = 0;
+		for (int i = player * HOUSES_PER_SIDE; i < (player + 1) * HOUSES_PER_SIDE; i++)
+			seedCount += seeds[i];
+		return seedCount;
+	}
+
+	/**
+	 * @return a mask with bit i set when the current player's i-th house, house playerTurn * 6 + i, can be sown.
+	 */
+	public int legalMoves()
+	{
+		int startingHouse = getPlayerTurn() * HOUSES_PER_SIDE, opponentSeeds = 0, legalMoves = 0;
+		for (int i = 0; i < HOUSES_PER_SIDE; i++)
+			opponentSeeds += getSeedCount((startingHouse + HOUSES_PER_SIDE + i) % NUMBER_OF_HOUSES);
+		// A house i places from the edge reaches an opponent with no seeds with more than i seeds
+		int feedingStep = opponentSeeds == 0 ? 1 : 0;
+		for (int i = 0; i < HOUSES_PER_SIDE; i++)
+			legalMoves |= ((i * feedingStep - getSeedCount(startingHouse + i)) >>> 31) << i;
+		return legalMoves;
+	}
+
+	/**
+	 * @return true if the current player can sow the specified house.
+	 */
+	public boolean canSow(int houseID)
+	{
+		int startingHouse = getPlayerTurn() * HOUSES_PER_SIDE;
+		return houseID >= startingHouse && houseID < startingHouse + HOUSES_PER_SIDE
+			&& (legalMoves() & (1 << (houseID - startingHouse))) != 0;
+	}
+
+	/**
+	 * @return the number of the player that has won, or -1 if no player has.
+	 */
+	public int winner()
+	{
+		if (getScore(0) >= SEEDS_REQUIRED_TO_WIN)
+			return 0;
+		if (getScore(1) >= SEEDS_REQUIRED_TO_WIN)
+			return 1;
+		return -1;
+	}
+
+	/**
+	 * @return true if both players have captured 24 seeds.
+	 */
+	public boolean hasDrawn()
+	{
+		return getScore(0) == 24 && getScore(1) == 24;
+	}
+
+	/**
+	 * @return true if a player has won or the game has been drawn.
+	 */
+	public boolean hasEnded()
+	{
+		return winner() != -1 || hasDrawn();
+	}
+
+	/**
+	 * @return the number of seeds in the specified house.
+	 */
+	public int getSeedCount(int houseID)
+	{
+		if (houseID < HOUSES_IN_BOARD)
+			return (int) (board >>> (houseID * BITS_PER_HOUSE)) & FIELD_MASK;
+		return (rest >>> ((houseID - HOUSES_IN_BOARD) * BITS_PER_HOUSE)) & FIELD_MASK;
+	}
+
+	/**
+	 * @return the number of seeds the specified player has captured.
+	 */
+	public int getScore(int player)
+	{
+		return (rest >>> (SCORE_SHIFT + player * BITS_PER_HOUSE)) & FIELD_MASK;
+	}
+
+	/**
+	 * @return the number of the player whose turn it is.
+	 */
+	public int getPlayerTurn()
+	{
+		return rest >>> TURN_SHIFT;
+	}
+
+	/**
+	 * @return the Zobrist hash of the position, the same as Game.getHash() for the same position.
+	 */
+	public long getHash()
+	{
+		return hash;
+	}
+
+	@Override
+	public boolean equals(Object other)
+	{
+		if (!(other instanceof GameState))
+			return false;
+		GameState state = (GameState) other;
+		return board == state.board && rest == state.rest;
+	}
+
+	@Override
+	public int hashCode()
+	{
+		return (int) (hash ^ (hash >>> 32));
+	}
+
+	@Override
+	public String toString()
+	{
+		return toGame(false).toString();
+	}
+}
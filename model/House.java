@@ -22,6 +22,15 @@ public class House
 		seedCount = house.seedCount;
 	}
 
+	/**
+	 * Construct a house holding the specified number of seeds
+	 * @param seedCount
+	 */
+	House(int seedCount)
+	{
+		this.seedCount = seedCount;
+	}
+
 	/**
 	 * Increment the seed count by one
 	 */
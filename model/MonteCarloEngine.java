@@ -0,0 +1,320 @@
+package model;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
+
+/**
+ * Monte Carlo tree search (UCT) engine. Each iteration walks down the tree picking the child with the
+ * best upper confidence bound, adds the children of the node it reaches, then plays random legal moves
+ * from there to the end of the game and credits the result to every node on the way.
+ *
+ * Searches run with root parallelism: every thread grows its own tree from the same position on its own
+ * copy of the game, and the visit counts of the root moves are added together at the end. The threads
+ * share nothing while searching. Trees are held in primitive arrays that are reused between searches.
+ */
+public class MonteCarloEngine implements Engine
+{
+	/**
+	 * Default number of iterations per thread when no time budget is given.
+	 */
+	public static final int DEFAULT_ITERATIONS = 20000;
+
+	static final int NUMBER_OF_HOUSES = 12;
+
+	// Weight of exploration against exploitation in the upper confidence bound
+	private static final double EXPLORATION = 1.4;
+	// Playouts stop after this many moves, as positions can repeat forever
+	private static final int MAX_PLAYOUT_MOVES = 200;
+	// Together with the playout this stays within the moves a game can undo
+	private static final int MAX_TREE_DEPTH = 512;
+	// The clock is only read once every this many iterations (plus one)
+	private static final int BUDGET_CHECK_MASK = 63;
+	private static final int NODES_PER_TREE = 1 << 18;
+	// Given to the searches nobody can stop
+	private static final StopToken NO_STOP = new StopToken();
+
+	private final int iterations, threads;
+	private final Worker[] workers;
+	private ForkJoinPool pool;
+	private long seed;
+
+	/**
+	 * Construct an engine using the default number of iterations on the default number of threads
+	 */
+	public MonteCarloEngine()
+	{
+		this(DEFAULT_ITERATIONS, SearchEngine.DEFAULT_THREADS);
+	}
+
+	/**
+	 * Construct an engine
+	 * @param iterations the number of iterations each thread runs when no time budget is given
+	 * @param threads the number of trees to grow at once
+	 */
+	public MonteCarloEngine(int iterations, int threads)
+	{
+		this(iterations, threads, System.nanoTime());
+	}
+
+	/**
+	 * Construct an engine whose random playouts are repeatable
+	 * @param iterations the number of iterations each thread runs when no time budget is given
+	 * @param threads the number of trees to grow at once
+	 * @param seed the seed for the random playouts
+	 */
+	public MonteCarloEngine(int iterations, int threads, long seed)
+	{
+		if (iterations < 1 || threads < 1)
+			throw new IllegalArgumentException("Iterations and threads must be at least 1");
+		this.iterations = iterations;
+		this.threads = threads;
+		this.workers = new Worker[threads];
+		this.seed = seed;
+	}
+
+	@Override
+	public int bestMove(Game game)
+	{
+		return search(game, iterations, Long.MAX_VALUE, NO_STOP);
+	}
+
+	/**
+	 * Runs the default number of iterations, but every thread returns within a few iterations
+	 * once the token is stopped. The search then returns the move most visited so far.
+	 */
+	@Override
+	public int bestMove(Game game, StopToken stopToken)
+	{
+		return search(game, iterations, Long.MAX_VALUE, stopToken);
+	}
+
+	@Override
+	public int bestMove(Game game, Duration timeBudget)
+	{
+		return search(game, Integer.MAX_VALUE, System.nanoTime() + timeBudget.toNanos(), NO_STOP);
+	}
+
+	private synchronized int search(Game game, int iterations, long deadline, StopToken stopToken)
+	{
+		if (!game.canSowAny())
+			return -1;
+		for (int i = 0; i < threads; i++)
+		{
+			if (workers[i] == null)
+				workers[i] = new Worker(seed + i);
+			workers[i].reset(game);
+		}
+		seed += threads;
+
+		if (threads == 1)
+			workers[0].run(iterations, deadline, stopToken);
+		else
+		{
+			if (pool == null)
+				pool = new ForkJoinPool(threads);
+			List<Callable<Void>> runs = new ArrayList<Callable<Void>>(threads);
+			for (Worker worker : workers)
+			{
+				runs.add(() -> {
+					worker.run(iterations, deadline, stopToken);
+					return null;
+				});
+			}
+			try
+			{
+				for (Future<Void> run : pool.invokeAll(runs))
+					run.get();
+			}
+			catch (InterruptedException e)
+			{
+				Thread.currentThread().interrupt();
+			}
+			catch (ExecutionException e)
+			{
+				throw new IllegalStateException("Monte Carlo search failed", e.getCause());
+			}
+		}
+
+		// Root parallelism: the most visited move over all trees is the most trusted one
+		long[] visits = new long[NUMBER_OF_HOUSES];
+		for (Worker worker : workers)
+			worker.addRootVisits(visits);
+		int bestMove = -1;
+		for (int i = 0; i < NUMBER_OF_HOUSES; i++)
+		{
+			if (game.canSow(i) && (bestMove == -1 || visits[i] > visits[bestMove]))
+				bestMove = i;
+		}
+		return bestMove;
+	}
+
+	/**
+	 * @return the number of iterations run by all threads in the last search
+	 */
+	public synchronized long getIterationCount()
+	{
+		long total = 0;
+		for (Worker worker : workers)
+		{
+			if (worker != null)
+				total += worker.iterations;
+		}
+		return total;
+	}
+
+	/**
+	 * One thread's tree. Node 0 is the root, and each node has room for six children, one per house
+	 * of the player to move, indexed by the house's position on that player's side.
+	 */
+	private static final class Worker
+	{
+		private final int[] children = new int[NODES_PER_TREE * 6];
+		private final int[] visits = new int[NODES_PER_TREE];
+		// Wins of the player who moved into the node, a draw counting as half
+		private final float[] wins = new float[NODES_PER_TREE];
+		private final boolean[] expanded = new boolean[NODES_PER_TREE];
+		private final int[] path = new int[MAX_TREE_DEPTH + 2];
+		private final SplittableRandom random;
+		private Game game;
+		private int nodeCount, iterations;
+
+		Worker(long seed)
+		{
+			random = new SplittableRandom(seed);
+		}
+
+		void reset(Game root)
+		{
+			game = new Game(root);
+			nodeCount = 1;
+			iterations = 0;
+			clearNode(0);
+		}
+
+		void run(int iterations, long deadline, StopToken stopToken)
+		{
+			for (int iteration = 0; iteration < iterations; iteration++)
+			{
+				if ((iteration & BUDGET_CHECK_MASK) == BUDGET_CHECK_MASK && (stopToken.isStopped() || System.nanoTime() >= deadline))
+					return;
+				iterate();
+				this.iterations++;
+			}
+		}
+
+		void addRootVisits(long[] total)
+		{
+			int offset = game.getPlayerTurn() * 6;
+			for (int i = 0; i < 6; i++)
+			{
+				int child = children[i];
+				if (child != 0)
+					total[offset + i] += visits[child];
+			}
+		}
+
+		private void iterate()
+		{
+			int node = 0, depth = 0;
+			path[depth++] = 0;
+
+			// Selection
+			while (expanded[node] && depth <= MAX_TREE_DEPTH && !isOver(game))
+			{
+				int parentVisits = visits[node], bestChild = 0, bestHouse = -1;
+				double bestValue = Double.NEGATIVE_INFINITY, logVisits = Math.log(parentVisits + 1);
+				int offset = game.getPlayerTurn() * 6;
+				for (int i = 0; i < 6; i++)
+				{
+					int child = children[node * 6 + i];
+					if (child == 0)
+						continue;
+					double value = visits[child] == 0 ? Double.POSITIVE_INFINITY
+						: wins[child] / visits[child] + EXPLORATION * Math.sqrt(logVisits / visits[child]);
+					if (value > bestValue)
+					{
+						bestValue = value;
+						bestChild = child;
+						bestHouse = offset + i;
+					}
+				}
+				game.makeMove(bestHouse);
+				node = bestChild;
+				path[depth++] = node;
+			}
+
+			// Expansion, while there is room left in the tree
+			if (!expanded[node] && !isOver(game) && nodeCount + 6 <= NODES_PER_TREE)
+			{
+				for (int legalMoves = game.legalMoves(); legalMoves != 0; legalMoves &= legalMoves - 1)
+				{
+					clearNode(nodeCount);
+					children[node * 6 + Integer.numberOfTrailingZeros(legalMoves)] = nodeCount++;
+				}
+				expanded[node] = true;
+			}
+
+			// Playout
+			int playoutMoves = 0;
+			while (!isOver(game) && playoutMoves < MAX_PLAYOUT_MOVES)
+			{
+				int legalMoves = game.legalMoves();
+				// Clear a random number of the lowest set bits, then play the lowest one left
+				for (int skip = random.nextInt(Integer.bitCount(legalMoves)); skip > 0; skip--)
+					legalMoves &= legalMoves - 1;
+				game.makeMove(game.getPlayerTurn() * 6 + Integer.numberOfTrailingZeros(legalMoves));
+				playoutMoves++;
+			}
+			int winner = winner(game);
+			for (int i = 0; i < playoutMoves; i++)
+				game.unmakeMove();
+
+			// Backpropagation, each node scored for the player who moved into it
+			for (int i = depth - 1; i >= 0; i--)
+			{
+				int current = path[i];
+				visits[current]++;
+				if (i > 0)
+				{
+					game.unmakeMove();
+					int mover = game.getPlayerTurn();
+					if (winner == mover)
+						wins[current] += 1;
+					else if (winner == -1)
+						wins[current] += 0.5f;
+				}
+			}
+		}
+
+		private void clearNode(int node)
+		{
+			for (int i = 0; i < 6; i++)
+				children[node * 6 + i] = 0;
+			visits[node] = 0;
+			wins[node] = 0;
+			expanded[node] = false;
+		}
+
+		private static boolean isOver(Game game)
+		{
+			return game.hasEnded() || !game.canSowAny();
+		}
+
+		// The player ahead once each keeps the seeds on their own side, or -1 for a draw
+		private static int winner(Game game)
+		{
+			int difference = game.getScore(0) + game.playerSeedCount(0) - game.getScore(1) - game.playerSeedCount(1);
+			if (difference > 0)
+				return 0;
+			if (difference < 0)
+				return 1;
+			return -1;
+		}
+	}
+}
@@ -0,0 +1,132 @@
+package model;
+
+/**
+ * Orders the moves of a search node so that alpha-beta cuts off as early as possible.
+ * Moves are tried in this order: the transposition table's best move, moves whose last
+ * seed captures, the two killer moves of the ply, then the rest by their history score.
+ * Moves are kept in per-ply primitive buffers, so ordering never allocates.
+ */
+final class MoveOrderer
+{
+	private static final int MAX_MOVES = 6, TABLE_MOVE_SCORE = 1 << 20, CAPTURE_SCORE = 1 << 16,
+		FIRST_KILLER_SCORE = 1 << 15, SECOND_KILLER_SCORE = 1 << 14, MAX_HISTORY_SCORE = SECOND_KILLER_SCORE - 1;
+
+	private final int[][] moves, scores;
+	private final int[][] killers;
+	private final int[] history;
+	private long cutoffCount, firstMoveCutoffCount;
+
+	/**
+	 * Construct an orderer for searches up to the specified number of plies
+	 * @param maxPly the deepest ply that will be ordered
+	 * @param history the history table to use, indexed by house, which may be shared with other orderers
+	 */
+	MoveOrderer(int maxPly, int[] history)
+	{
+		moves = new int[maxPly + 1][MAX_MOVES];
+		scores = new int[maxPly + 1][MAX_MOVES];
+		killers = new int[maxPly + 1][2];
+		for (int[] plyKillers : killers)
+		{
+			plyKillers[0] = -1;
+			plyKillers[1] = -1;
+		}
+		this.history = history;
+	}
+
+	/**
+	 * Fills the buffer of the specified ply with the legal moves of the game, best first.
+	 *
+	 * @return the number of legal moves.
+	 */
+	int orderMoves(Game game, int ply, int tableMove)
+	{
+		int[] plyMoves = moves[ply], plyScores = scores[ply];
+		int count = 0;
+		int startingHouse = game.getPlayerTurn() * MAX_MOVES;
+		for (int legalMoves = game.legalMoves(); legalMoves != 0; legalMoves &= legalMoves - 1)
+		{
+			int i = startingHouse + Integer.numberOfTrailingZeros(legalMoves);
+			int score;
+			int captured = game.previewCapture(i);
+			if (i == tableMove)
+				score = TABLE_MOVE_SCORE;
+			else if (captured > 0)
+				score = CAPTURE_SCORE + captured;
+			else if (i == killers[ply][0])
+				score = FIRST_KILLER_SCORE;
+			else if (i == killers[ply][1])
+				score = SECOND_KILLER_SCORE;
+			else
+				score = history[i];
+
+			// Insertion sort, there are never more than six moves
+			int j = count++;
+			while (j > 0 && plyScores[j - 1] < score)
+			{
+				plyMoves[j] = plyMoves[j - 1];
+				plyScores[j] = plyScores[j - 1];
+				j--;
+			}
+			plyMoves[j] = i;
+			plyScores[j] = score;
+		}
+		return count;
+	}
+
+	/**
+	 * Get a move from the buffer of the specified ply.
+	 */
+	int move(int ply, int index)
+	{
+		return moves[ply][index];
+	}
+
+	/**
+	 * Records that a move caused a beta cutoff, so that it is tried earlier in similar positions.
+	 *
+	 * @param index the position of the move in the ply's ordering
+	 */
+	void recordCutoff(int ply, int move, int depth, int index)
+	{
+		cutoffCount++;
+		if (index == 0)
+			firstMoveCutoffCount++;
+		if (killers[ply][0] != move)
+		{
+			killers[ply][1] = killers[ply][0];
+			killers[ply][0] = move;
+		}
+		history[move] += depth * depth;
+		if (history[move] > MAX_HISTORY_SCORE)
+		{
+			for (int i = 0; i < history.length; i++)
+				history[i] /= 2;
+		}
+	}
+
+	/**
+	 * Get the number of beta cutoffs recorded.
+	 */
+	long getCutoffCount()
+	{
+		return cutoffCount;
+	}
+
+	/**
+	 * Get the number of beta cutoffs caused by the first move tried.
+	 */
+	long getFirstMoveCutoffCount()
+	{
+		return firstMoveCutoffCount;
+	}
+
+	/**
+	 * Resets the cutoff statistics.
+	 */
+	void clearStatistics()
+	{
+		cutoffCount = 0;
+		firstMoveCutoffCount = 0;
+	}
+}
@@ -0,0 +1,146 @@
+package model;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Read-only book of precomputed best moves for positions early in the game.
+ *
+ * The file holds fixed-size records of a position's Zobrist hash followed by the house to sow and
+ * the score found for it, sorted by hash. It is memory-mapped and looked up by binary search,
+ * so probing never allocates. Files are written by tools.OpeningBookBuilder.
+ */
+public final class OpeningBook
+{
+	/**
+	 * Marks an opening book file, "OWOB".
+	 */
+	public static final int MAGIC = 0x4F574F42;
+	/**
+	 * Size of the file header: the magic number then the number of records.
+	 */
+	public static final int HEADER_SIZE = 8;
+	/**
+	 * Size of a record: the hash, then the house to sow and the score as shorts.
+	 */
+	public static final int RECORD_SIZE = 12;
+
+	private static OpeningBook defaultBook;
+	private static String defaultPath;
+
+	private final MappedByteBuffer records;
+	private final int recordCount;
+
+	private OpeningBook(MappedByteBuffer records, int recordCount)
+	{
+		this.records = records;
+		this.recordCount = recordCount;
+	}
+
+	/**
+	 * Opens an opening book file.
+	 *
+	 * @throws IOException if the file cannot be read or is not an opening book.
+	 */
+	public static OpeningBook open(Path path) throws IOException
+	{
+		try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ))
+		{
+			ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE);
+			channel.read(header, 0);
+			header.flip();
+			if (header.remaining() < HEADER_SIZE || header.getInt() != MAGIC)
+				throw new IOException(path + " is not an opening book");
+			int recordCount = header.getInt();
+			if (recordCount < 0 || channel.size() < HEADER_SIZE + (long) recordCount * RECORD_SIZE)
+				throw new IOException(path + " is truncated");
+			// The mapping stays valid after the channel is closed
+			return new OpeningBook(channel.map(FileChannel.MapMode.READ_ONLY, HEADER_SIZE, (long) recordCount * RECORD_SIZE), recordCount);
+		}
+	}
+
+	/**
+	 * Get the opening book named by the oware.book system property, opened the first time it is asked for each path.
+	 *
+	 * @return the default opening book, or null if none is configured.
+	 * @throws UncheckedIOException if the opening book configured cannot be opened.
+	 */
+	public static synchronized OpeningBook getDefault()
+	{
+		String path = System.getProperty("oware.book");
+		if (path == null)
+			return null;
+		if (!path.equals(defaultPath))
+		{
+			try
+			{
+				defaultBook = open(Paths.get(path));
+			}
+			catch (IOException e)
+			{
+				throw new UncheckedIOException("Cannot open the opening book " + path + " set by oware.book", e);
+			}
+			defaultPath = path;
+		}
+		return defaultBook;
+	}
+
+	/**
+	 * Get the number of positions in the book.
+	 */
+	public int size()
+	{
+		return recordCount;
+	}
+
+	/**
+	 * Looks up the best move for the current position of the game.
+	 *
+	 * @return The house ID of the house to sow, or -1 if the position is not in the book.
+	 */
+	public int probe(Game game)
+	{
+		int record = find(game.getHash());
+		if (record == -1)
+			return -1;
+		int move = records.getShort(record * RECORD_SIZE + 8);
+		// A different position with the same hash would almost never give a move that can be sown
+		return game.canSow(move) ? move : -1;
+	}
+
+	/**
+	 * Looks up the score found for the current position of the game when the book was built.
+	 *
+	 * @return the score of the book move for the player to move, or 0 if the position is not in the book.
+	 */
+	public int probeScore(Game game)
+	{
+		int record = find(game.getHash());
+		if (record == -1)
+			return 0;
+		return records.getShort(record * RECORD_SIZE + 10);
+	}
+
+	private int find(long key)
+	{
+		int low = 0, high = recordCount - 1;
+		while (low <= high)
+		{
+			int middle = (low + high) >>> 1;
+			long middleKey = records.getLong(middle * RECORD_SIZE);
+			if (middleKey < key)
+				low = middle + 1;
+			else if (middleKey > key)
+				high = middle - 1;
+			else
+				return middle;
+		}
+		return -1;
+	}
+}
@@ -0,0 +1,281 @@
+package model;
+
+import java.util.Arrays;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * A bounded cache of the AI's answers, keyed by Zobrist hash, that any number of engines and threads
+ * can share, so that a position one game has already searched is answered at once in every other.
+ * Unlike a transposition table it only holds root results, and it keeps the positions that are asked
+ * for again: when full, the CLOCK policy evicts an entry that has not been read since the clock hand
+ * last passed it.
+ *
+ * The cache is split into segments, each with its own lock, primitive arrays and clock hand, so that
+ * threads rarely wait for each other and nothing is allocated after construction.
+ */
+public final class PositionCache
+{
+	/**
+	 * Default number of entries of the shared cache, set with the oware.cache.entries system property.
+	 * The shared cache is off when this is 0.
+	 */
+	public static final int DEFAULT_ENTRIES = Integer.getInteger("oware.cache.entries", 0);
+
+	private static final int MAX_SEGMENTS = 64, MIN_SEGMENT_ENTRIES = 64;
+	// Entry layout: move (bits 0-3), depth (4-11), score (16-31, signed), present (32)
+	private static final long PRESENT = 1L << 32;
+
+	private static PositionCache defaultCache;
+
+	private final Segment[] segments;
+	private final int segmentShift;
+	private final LongAdder hits = new LongAdder(), misses = new LongAdder(), evictions = new LongAdder();
+
+	/**
+	 * Construct a cache
+	 * @param capacity the most entries the cache holds, at least 1
+	 */
+	public PositionCache(int capacity)
+	{
+		if (capacity < 1)
+			throw new IllegalArgumentException("A cache must hold at least one entry");
+		int segmentCount = Math.min(MAX_SEGMENTS, Integer.highestOneBit(Math.max(1, capacity / MIN_SEGMENT_ENTRIES)));
+		segments = new Segment[segmentCount];
+		for (int i = 0; i < segmentCount; i++)
+			segments[i] = new Segment(capacity / segmentCount);
+		segmentShift = 64 - Integer.numberOfTrailingZeros(segmentCount);
+	}
+
+	/**
+	 * Get the cache shared by every engine in this JVM, sized by the oware.cache.entries system property.
+	 *
+	 * @return the shared cache, or null if the property is not set.
+	 */
+	public static synchronized PositionCache getDefault()
+	{
+		if (defaultCache == null && DEFAULT_ENTRIES > 0)
+			defaultCache = new PositionCache(DEFAULT_ENTRIES);
+		return defaultCache;
+	}
+
+	/**
+	 * Looks up the answer stored for a position and counts a hit or a miss.
+	 *
+	 * @return the packed entry, or 0 if the position is not in the cache.
+	 */
+	public long probe(long key)
+	{
+		long entry = segment(key).get(key);
+		if (entry == 0)
+			misses.increment();
+		else
+			hits.increment();
+		return entry;
+	}
+
+	/**
+	 * Stores the answer for a position, keeping any answer already there from a deeper search.
+	 */
+	public void store(long key, int move, int score, int depth)
+	{
+		long entry = PRESENT | (move & 0xF) | (long) (depth & 0xFF) << 4 | (long) (score & 0xFFFF) << 16;
+		if (segment(key).put(key, entry))
+			evictions.increment();
+	}
+
+	/**
+	 * @return the house to sow stored in a probed entry.
+	 */
+	public static int move(long entry)
+	{
+		return (int) (entry & 0xF);
+	}
+
+	/**
+	 * @return the depth of the search that stored a probed entry.
+	 */
+	public static int depth(long entry)
+	{
+		return (int) (entry >>> 4) & 0xFF;
+	}
+
+	/**
+	 * @return the score, for the player to move, stored in a probed entry.
+	 */
+	public static int score(long entry)
+	{
+		return (short) (entry >>> 16);
+	}
+
+	/**
+	 * @return the number of probes that found their position.
+	 */
+	public long getHitCount()
+	{
+		return hits.sum();
+	}
+
+	/**
+	 * @return the number of probes that did not find their position.
+	 */
+	public long getMissCount()
+	{
+		return misses.sum();
+	}
+
+	/**
+	 * @return the number of entries evicted to make room for new ones.
+	 */
+	public long getEvictionCount()
+	{
+		return evictions.sum();
+	}
+
+	/**
+	 * Removes every entry. The hit, miss and eviction counts are kept.
+	 */
+	public void clear()
+	{
+		for (Segment segment : segments)
+			segment.clear();
+	}
+
+	/**
+	 * @return the fraction of probes that found their position, or 0 before the first probe.
+	 */
+	public double getHitRate()
+	{
+		long hitCount = hits.sum(), probes = hitCount + misses.sum();
+		return probes == 0 ? 0 : (double) hitCount / probes;
+	}
+
+	/**
+	 * @return the number of entries held.
+	 */
+	public int size()
+	{
+		int size = 0;
+		for (Segment segment : segments)
+			size += segment.size();
+		return size;
+	}
+
+	private Segment segment(long key)
+	{
+		return segments.length == 1 ? segments[0] : segments[(int) (key >>> segmentShift)];
+	}
+
+	/**
+	 * Entries are kept in slots in the order they arrive, and found through an open addressing
+	 * index of slot numbers plus one, so that 0 marks a free index cell.
+	 */
+	private static final class Segment
+	{
+		private final long[] keys, entries;
+		private final boolean[] referenced;
+		private final int[] index;
+		private final int indexMask;
+		private int size, hand;
+
+		Segment(int capacity)
+		{
+			keys = new long[capacity];
+			entries = new long[capacity];
+			referenced = new boolean[capacity];
+			index = new int[Integer.highestOneBit(capacity * 2 - 1) * 2];
+			indexMask = index.length - 1;
+		}
+
+		synchronized long get(long key)
+		{
+			int slot = find(key);
+			if (slot == -1)
+				return 0;
+			referenced[slot] = true;
+			return entries[slot];
+		}
+
+		// Returns whether an entry had to be evicted
+		synchronized boolean put(long key, long entry)
+		{
+			int slot = find(key);
+			if (slot != -1)
+			{
+				if (depth(entry) >= depth(entries[slot]))
+					entries[slot] = entry;
+				referenced[slot] = true;
+				return false;
+			}
+			boolean evicted = size == keys.length;
+			if (evicted)
+			{
+				// Give every referenced entry a second chance, then take the first one that has none
+				while (referenced[hand])
+				{
+					referenced[hand] = false;
+					hand = (hand + 1) % keys.length;
+				}
+				slot = hand;
+				hand = (hand + 1) % keys.length;
+				removeFromIndex(keys[slot]);
+			}
+			else
+				slot = size++;
+			keys[slot] = key;
+			entries[slot] = entry;
+			referenced[slot] = false;
+			int cell = (int) key & indexMask;
+			while (index[cell] != 0)
+				cell = (cell + 1) & indexMask;
+			index[cell] = slot + 1;
+			return evicted;
+		}
+
+		synchronized int size()
+		{
+			return size;
+		}
+
+		synchronized void clear()
+		{
+			Arrays.fill(index, 0);
+			Arrays.fill(referenced, false);
+			size = 0;
+			hand = 0;
+		}
+
+		private int find(long key)
+		{
+			for (int cell = (int) key & indexMask; index[cell] != 0; cell = (cell + 1) & indexMask)
+			{
+				if (keys[index[cell] - 1] == key)
+					return index[cell] - 1;
+			}
+			return -1;
+		}
+
+		// Removes a key from the index, moving back later cells of the same run so that none is lost
+		private void removeFromIndex(long key)
+		{
+			int cell = (int) key & indexMask;
+			while (keys[index[cell] - 1] != key)
+				cell = (cell + 1) & indexMask;
+			int next = cell;
+			while (true)
+			{
+				next = (next + 1) & indexMask;
+				if (index[next] == 0)
+					break;
+				int home = (int) keys[index[next] - 1] & indexMask;
+				// Move the cell back if its home is not between the free cell and itself
+				boolean between = cell <= next ? (cell < home && home <= next) : (cell < home || home <= next);
+				if (!between)
+				{
+					index[cell] = index[next];
+					cell = next;
+				}
+			}
+			index[cell] = 0;
+		}
+	}
+}
@@ -0,0 +1,605 @@
+package model;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.RecursiveTask;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Negamax search with alpha-beta pruning used to pick the AI's moves.
+ * Positions are scored by the capture difference from the point of view of the player to move.
+ * Results are kept in a transposition table so that positions reached by different move orders
+ * are only searched once. Searches deepen one ply at a time, and the best moves found by each
+ * iteration are tried first by the next, so a search can be stopped by a time or node budget.
+ *
+ * With more than one thread the search splits deep nodes young-brothers-wait style: the first
+ * move of a node is searched alone, then the remaining moves are searched in parallel on a
+ * ForkJoinPool, all threads sharing the transposition table.
+ */
+public class SearchEngine implements Engine
+{
+	static final int DEFAULT_DEPTH = 12, MAX_DEPTH = 64, WIN_SCORE = 1000, NUMBER_OF_HOUSES = 12;
+
+	/**
+	 * Default number of search threads, set with the oware.search.threads system property.
+	 */
+	public static final int DEFAULT_THREADS = Integer.getInteger("oware.search.threads", 1);
+
+	// Scores this close to WIN_SCORE are wins or losses found at a known distance from the root
+	private static final int DECIDED_SCORE = WIN_SCORE - 256;
+	// The clock is only read once every this many nodes (plus one)
+	private static final int BUDGET_CHECK_MASK = 1023;
+	// Nodes with less depth left than this are too small to be worth splitting between threads
+	private static final int MIN_SPLIT_DEPTH = 5;
+	// Given to the searches nobody can stop
+	private static final StopToken NO_STOP = new StopToken();
+
+	private int maxDepth;
+	private TranspositionTable transpositionTable;
+	private int threads;
+	private ForkJoinPool pool;
+	private Tablebase tablebase = Tablebase.getDefault();
+	private OpeningBook openingBook = OpeningBook.getDefault();
+	private PositionCache positionCache = PositionCache.getDefault();
+
+	private final AtomicLong nodeCount = new AtomicLong(), cutoffCount = new AtomicLong(),
+		firstMoveCutoffCount = new AtomicLong();
+	// Shared by every thread's move orderer; racing updates only blur the scores
+	private final int[] history = new int[NUMBER_OF_HOUSES];
+	private long nodeLimit, deadline;
+	private volatile boolean aborted;
+	private StopToken stopToken;
+	private int bestRootMove, bestScore, completedDepth;
+
+	/**
+	 * Construct a search engine that searches to the default depth
+	 */
+	public SearchEngine()
+	{
+		this(DEFAULT_DEPTH);
+	}
+
+	/**
+	 * Construct a search engine that searches to the specified depth
+	 * @param maxDepth the number of plies to search
+	 */
+	public SearchEngine(int maxDepth)
+	{
+		this(maxDepth, TranspositionTable.DEFAULT_SIZE_MB);
+	}
+
+	/**
+	 * Construct a search engine that searches to the specified depth
+	 * @param maxDepth the number of plies to search
+	 * @param transpositionTableMegabytes the size of the transposition table
+	 */
+	public SearchEngine(int maxDepth, int transpositionTableMegabytes)
+	{
+		this(maxDepth, transpositionTableMegabytes, DEFAULT_THREADS);
+	}
+
+	/**
+	 * Construct a search engine that searches to the specified depth using several threads
+	 * @param maxDepth the number of plies to search
+	 * @param transpositionTableMegabytes the size of the transposition table shared by the threads
+	 * @param threads the number of threads to search with, 1 to search on the calling thread only
+	 */
+	public SearchEngine(int maxDepth, int transpositionTableMegabytes, int threads)
+	{
+		if (threads < 1)
+			throw new IllegalArgumentException("A search needs at least one thread");
+		this.maxDepth = maxDepth;
+		this.transpositionTable = new TranspositionTable(transpositionTableMegabytes);
+		this.threads = threads;
+	}
+
+	/**
+	 * Deduces the best house for the current player of the specified game to sow.
+	 * The game passed in is left untouched.
+	 *
+	 * @return The house ID of the house to sow, or -1 if no house can be sown.
+	 */
+	@Override
+	public int bestMove(Game game)
+	{
+		return search(game, maxDepth, Long.MAX_VALUE, Long.MAX_VALUE, NO_STOP);
+	}
+
+	/**
+	 * Deduces the best house to sow like {@link #bestMove(Game)}, but checks the token as often as
+	 * the budgets. A stopped search returns the best move of the deepest iteration it completed.
+	 *
+	 * @return The house ID of the house to sow, or -1 if no house can be sown or no iteration completed.
+	 */
+	@Override
+	public int bestMove(Game game, StopToken stopToken)
+	{
+		return search(game, maxDepth, Long.MAX_VALUE, Long.MAX_VALUE, stopToken);
+	}
+
+	/**
+	 * Deduces the best house to sow within a time budget. The search deepens one ply at
+	 * a time and returns the best move of the deepest iteration completed in time.
+	 * The first ply is always completed, however small the budget.
+	 *
+	 * @return The house ID of the house to sow, or -1 if no house can be sown.
+	 */
+	@Override
+	public int bestMove(Game game, Duration timeBudget)
+	{
+		return search(game, MAX_DEPTH, System.nanoTime() + timeBudget.toNanos(), Long.MAX_VALUE, NO_STOP);
+	}
+
+	/**
+	 * Deduces the best house to sow within a budget of visited positions. The search deepens
+	 * one ply at a time and returns the best move of the deepest iteration completed in budget.
+	 * The first ply is always completed, however small the budget.
+	 *
+	 * @return The house ID of the house to sow, or -1 if no house can be sown.
+	 */
+	public int bestMove(Game game, long nodeBudget)
+	{
+		return search(game, MAX_DEPTH, Long.MAX_VALUE, nodeBudget, NO_STOP);
+	}
+
+	/**
+	 * Sets the endgame tablebase to consult once few seeds are left on the board.
+	 *
+	 * @param tablebase the tablebase, or null to search endgames like any other position.
+	 */
+	public void setTablebase(Tablebase tablebase)
+	{
+		this.tablebase = tablebase;
+	}
+
+	/**
+	 * Sets the opening book to look positions up in before searching them.
+	 *
+	 * @param openingBook the opening book, or null to always search.
+	 */
+	public void setOpeningBook(OpeningBook openingBook)
+	{
+		this.openingBook = openingBook;
+	}
+
+	/**
+	 * Sets the cache of answers to look positions up in before searching them, and to store the
+	 * answers of searches in. The cache can be shared by any number of engines.
+	 *
+	 * @param positionCache the cache, or null to always search.
+	 */
+	public void setPositionCache(PositionCache positionCache)
+	{
+		this.positionCache = positionCache;
+	}
+
+	/**
+	 * Forgets everything learnt from earlier searches: the transposition table, the move history
+	 * and the answers in the position cache, if any. The next search starts as a new engine's would,
+	 * without allocating a new table.
+	 */
+	public void clear()
+	{
+		transpositionTable.clear();
+		Arrays.fill(history, 0);
+		if (positionCache != null)
+			positionCache.clear();
+	}
+
+	/**
+	 * Get the number of positions visited by the last search.
+	 *
+	 * @return the node count of the last search.
+	 */
+	public long getNodeCount()
+	{
+		return nodeCount.get();
+	}
+
+	/**
+	 * Get the number of beta cutoffs in the last search.
+	 *
+	 * @return the cutoff count of the last search.
+	 */
+	public long getCutoffCount()
+	{
+		return cutoffCount.get();
+	}
+
+	/**
+	 * Get the number of beta cutoffs in the last search that were caused by the first
+	 * move tried, which shows how well moves are being ordered.
+	 *
+	 * @return the first move cutoff count of the last search.
+	 */
+	public long getFirstMoveCutoffCount()
+	{
+		return firstMoveCutoffCount.get();
+	}
+
+	/**
+	 * Get the score of the move found by the last search, from the point of view of the player
+	 * to move: the capture difference, or close to 1000 for a win and close to -1000 for a loss.
+	 *
+	 * @return the score of the best move.
+	 */
+	public int getBestScore()
+	{
+		return bestScore;
+	}
+
+	/**
+	 * Get the depth of the deepest iteration completed by the last search.
+	 *
+	 * @return the number of plies searched.
+	 */
+	public int getCompletedDepth()
+	{
+		return completedDepth;
+	}
+
+	/**
+	 * Get the number of threads the engine searches with.
+	 *
+	 * @return the thread count.
+	 */
+	public int getThreads()
+	{
+		return threads;
+	}
+
+	private int search(Game game, int depthLimit, long deadline, long nodeLimit, StopToken stopToken)
+	{
+		this.stopToken = stopToken;
+		Searcher root = new Searcher(new Game(game), null);
+		nodeCount.set(0);
+		cutoffCount.set(0);
+		firstMoveCutoffCount.set(0);
+		for (int i = 0; i < NUMBER_OF_HOUSES; i++)
+			history[i] /= 2;
+		completedDepth = 0;
+		bestScore = 0;
+		transpositionTable.newSearch();
+		if (!root.game.canSowAny())
+			return -1;
+		if (openingBook != null)
+		{
+			int bookMove = openingBook.probe(root.game);
+			if (bookMove != -1)
+			{
+				bestScore = openingBook.probeScore(root.game);
+				return bookMove;
+			}
+		}
+		// A fixed depth search takes an answer at least as deep, a budgeted one an answer as deep as the engine's own depth
+		long cached = positionCache == null ? 0 : positionCache.probe(root.game.getHash());
+		if (cached != 0 && PositionCache.depth(cached) >= Math.min(depthLimit, maxDepth)
+			&& root.game.canSow(PositionCache.move(cached)))
+		{
+			bestScore = PositionCache.score(cached);
+			completedDepth = PositionCache.depth(cached);
+			return PositionCache.move(cached);
+		}
+		if (threads > 1 && pool == null)
+			pool = new ForkJoinPool(threads);
+
+		int bestMove = -1;
+		for (int depth = 1; depth <= depthLimit; depth++)
+		{
+			// The budget only applies once a first move has been found
+			this.deadline = depth == 1 ? Long.MAX_VALUE : deadline;
+			this.nodeLimit = depth == 1 ? Long.MAX_VALUE : nodeLimit;
+			aborted = stopToken.isStopped();
+			bestRootMove = -1;
+			int score;
+			if (pool == null)
+				score = root.negamax(depth, -WIN_SCORE - 1, WIN_SCORE + 1, 0);
+			else
+				score = pool.invoke(new SplitTask(root.game, depth, -WIN_SCORE - 1, WIN_SCORE + 1));
+			root.flushNodeCount();
+			if (aborted)
+				break;
+			bestMove = bestRootMove;
+			bestScore = score;
+			completedDepth = depth;
+			if (score > DECIDED_SCORE || score < -DECIDED_SCORE)
+				break;
+		}
+		if (positionCache != null && bestMove != -1)
+		{
+			// A decided score holds however deep a later search would go
+			boolean decided = bestScore > DECIDED_SCORE || bestScore < -DECIDED_SCORE;
+			positionCache.store(root.game.getHash(), bestMove, bestScore, decided ? MAX_DEPTH : completedDepth);
+		}
+		return bestMove;
+	}
+
+	/**
+	 * The state of one thread's walk of the tree: its own copy of the game to make and unmake
+	 * moves on, and its own move ordering buffers and killer moves.
+	 */
+	private final class Searcher
+	{
+		private final Game game;
+		private final MoveOrderer moveOrderer = new MoveOrderer(MAX_DEPTH, history);
+		// The split node this walk is a younger brother of, or null for the root's walk
+		private final SplitPoint splitPoint;
+		private long nodes;
+
+		Searcher(Game game, SplitPoint splitPoint)
+		{
+			this.game = game;
+			this.splitPoint = splitPoint;
+		}
+
+		// Whether the search ran out of budget, or a brother of this walk or of a split node above it failed high
+		boolean stopped()
+		{
+			return aborted || (splitPoint != null && splitPoint.isCut());
+		}
+
+		// Small split tasks may finish before reaching a check, so the budget is also checked when they end
+		void flushNodeCount()
+		{
+			checkBudget(nodeCount.addAndGet(nodes & BUDGET_CHECK_MASK));
+			nodes = 0;
+			cutoffCount.addAndGet(moveOrderer.getCutoffCount());
+			firstMoveCutoffCount.addAndGet(moveOrderer.getFirstMoveCutoffCount());
+			moveOrderer.clearStatistics();
+		}
+
+		int negamax(int depth, int alpha, int beta, int ply)
+		{
+			if ((++nodes & BUDGET_CHECK_MASK) == 0)
+				checkBudget(nodeCount.addAndGet(BUDGET_CHECK_MASK + 1));
+			if (stopped())
+				return 0;
+			int player = game.getPlayerTurn(), opponent = 1 - player;
+			if (ply > 0)
+			{
+				int winner = game.winner();
+				if (winner != -1)
+					return winner == player ? WIN_SCORE - ply : -WIN_SCORE + ply;
+				if (game.hasDrawn())
+					return 0;
+				if (!game.canSowAny())
+					return terminalScore(game, player, opponent, ply);
+				if (tablebase != null && tablebase.contains(game))
+					return decidedScore(game.getScore(player) - game.getScore(opponent) + tablebase.probe(game), ply);
+				if (depth == 0)
+					return game.getScore(player) - game.getScore(opponent);
+			}
+
+			long key = game.getHash();
+			long entry = transpositionTable.probe(key);
+			int tableMove = -1;
+			if (entry != 0)
+			{
+				tableMove = TranspositionTable.move(entry);
+				if (ply > 0 && TranspositionTable.depth(entry) >= depth)
+				{
+					int score = fromTable(TranspositionTable.score(entry), ply);
+					int bound = TranspositionTable.bound(entry);
+					if (bound == TranspositionTable.EXACT
+						|| (bound == TranspositionTable.LOWER_BOUND && score >= beta)
+						|| (bound == TranspositionTable.UPPER_BOUND && score <= alpha))
+						return score;
+				}
+			}
+
+			boolean split = depth >= MIN_SPLIT_DEPTH && pool != null && ForkJoinTask.getPool() == pool;
+			ArrayList<SplitTask> youngerBrothers = null;
+			SplitPoint youngerBrothersSplit = null;
+			int originalAlpha = alpha, bestMove = -1;
+			int moveCount = moveOrderer.orderMoves(game, ply, tableMove);
+			for (int n = 0; n < moveCount; n++)
+			{
+				int i = moveOrderer.move(ply, n);
+				if (split && bestMove != -1)
+				{
+					if (youngerBrothers == null)
+					{
+						youngerBrothers = new ArrayList<SplitTask>(NUMBER_OF_HOUSES / 2);
+						youngerBrothersSplit = new SplitPoint(splitPoint, alpha, beta);
+					}
+					youngerBrothers.add(new SplitTask(game, i, n, depth - 1, youngerBrothersSplit, ply + 1));
+					continue;
+				}
+				game.makeMove(i);
+				int score = -negamax(depth - 1, -beta, -alpha, ply + 1);
+				game.unmakeMove();
+				if (stopped())
+					return 0;
+				if (score > alpha || bestMove == -1)
+				{
+					bestMove = i;
+					if (score > alpha)
+						alpha = score;
+					if (alpha >= beta)
+					{
+						moveOrderer.recordCutoff(ply, i, depth, n);
+						break;
+					}
+				}
+			}
+
+			if (youngerBrothers != null)
+			{
+				ForkJoinTask.invokeAll(youngerBrothers);
+				if (stopped())
+					return 0;
+				if (youngerBrothersSplit.bestMove != -1)
+				{
+					alpha = youngerBrothersSplit.alpha;
+					bestMove = youngerBrothersSplit.bestMove;
+					if (alpha >= beta)
+						moveOrderer.recordCutoff(ply, bestMove, depth, youngerBrothersSplit.bestMoveNumber);
+				}
+			}
+
+			int bound;
+			if (alpha >= beta)
+				bound = TranspositionTable.LOWER_BOUND;
+			else if (alpha > originalAlpha)
+				bound = TranspositionTable.EXACT;
+			else
+				bound = TranspositionTable.UPPER_BOUND;
+			transpositionTable.store(key, depth, bound, bestMove, toTable(alpha, ply));
+			if (ply == 0)
+				bestRootMove = bestMove;
+			return alpha;
+		}
+	}
+
+	private void checkBudget(long totalNodes)
+	{
+		if (totalNodes >= nodeLimit || System.nanoTime() >= deadline || stopToken.isStopped())
+			aborted = true;
+	}
+
+	/**
+	 * The window shared by the younger brothers of a split node. Each brother starts from the best score
+	 * found so far, and once one fails high the others, and everything split off below them, stop.
+	 */
+	private static final class SplitPoint
+	{
+		private final SplitPoint parent;
+		private final int beta;
+		// Written under the lock, and read by the split node only once every brother has been joined
+		private int alpha, bestMove = -1, bestMoveNumber;
+		private volatile boolean cut;
+
+		SplitPoint(SplitPoint parent, int alpha, int beta)
+		{
+			this.parent = parent;
+			this.alpha = alpha;
+			this.beta = beta;
+		}
+
+		synchronized int alpha()
+		{
+			return alpha;
+		}
+
+		// Takes a brother's score, from the split node's side
+		synchronized void offer(int score, int move, int moveNumber)
+		{
+			if (score > alpha)
+			{
+				alpha = score;
+				bestMove = move;
+				bestMoveNumber = moveNumber;
+				if (alpha >= beta)
+					cut = true;
+			}
+		}
+
+		boolean isCut()
+		{
+			for (SplitPoint point = this; point != null; point = point.parent)
+			{
+				if (point.cut)
+					return true;
+			}
+			return false;
+		}
+	}
+
+	/**
+	 * Searches one younger brother of a split node on its own copy of the game, and offers its score
+	 * to the split point. A task without a split point searches the position itself with the given
+	 * window, which is how the root is handed to the pool.
+	 */
+	private final class SplitTask extends RecursiveTask<Integer>
+	{
+		// Tasks only live within one search, and are never serialised
+		private static final long serialVersionUID = 1L;
+		private final transient Game game;
+		private final transient SplitPoint splitPoint;
+		private final int move, moveNumber, depth, alpha, beta, ply;
+
+		SplitTask(Game parent, int move, int moveNumber, int depth, SplitPoint splitPoint, int ply)
+		{
+			this.game = new Game(parent);
+			this.move = move;
+			this.moveNumber = moveNumber;
+			this.depth = depth;
+			this.splitPoint = splitPoint;
+			this.alpha = 0;
+			this.beta = 0;
+			this.ply = ply;
+		}
+
+		SplitTask(Game root, int depth, int alpha, int beta)
+		{
+			this.game = new Game(root);
+			this.move = -1;
+			this.moveNumber = -1;
+			this.depth = depth;
+			this.splitPoint = null;
+			this.alpha = alpha;
+			this.beta = beta;
+			this.ply = 0;
+		}
+
+		@Override
+		protected Integer compute()
+		{
+			if (splitPoint == null)
+			{
+				Searcher searcher = new Searcher(game, null);
+				int score = searcher.negamax(depth, alpha, beta, ply);
+				searcher.flushNodeCount();
+				return score;
+			}
+			// A brother that already failed high makes this one pointless
+			if (splitPoint.isCut())
+				return 0;
+			game.makeMove(move);
+			Searcher searcher = new Searcher(game, splitPoint);
+			int score = -searcher.negamax(depth, -splitPoint.beta, -splitPoint.alpha(), ply);
+			searcher.flushNodeCount();
+			if (!searcher.stopped())
+				splitPoint.offer(score, move, moveNumber);
+			return score;
+		}
+	}
+
+	// Decided scores are stored relative to the position rather than the root, so they stay valid when transposed
+	private static int toTable(int score, int ply)
+	{
+		if (score > DECIDED_SCORE)
+			return score + ply;
+		if (score < -DECIDED_SCORE)
+			return score - ply;
+		return score;
+	}
+
+	private static int fromTable(int score, int ply)
+	{
+		if (score > DECIDED_SCORE)
+			return score - ply;
+		if (score < -DECIDED_SCORE)
+			return score + ply;
+		return score;
+	}
+
+	// When the player to move cannot sow, the remaining seeds go to the side they sit on and the game is decided.
+	private static int terminalScore(Game game, int player, int opponent, int ply)
+	{
+		return decidedScore(game.getScore(player) + game.playerSeedCount(player)
+			- game.getScore(opponent) - game.playerSeedCount(opponent), ply);
+	}
+
+	private static int decidedScore(int difference, int ply)
+	{
+		if (difference > 0)
+			return WIN_SCORE - ply;
+		if (difference < 0)
+			return -WIN_SCORE + ply;
+		return 0;
+	}
+}
@@ -0,0 +1,69 @@
+package model;
+
+/**
+ * Precomputed sowing, so that a house is sown in the same number of steps whatever its seed count.
+ * Seeds go round the board from the house sown towards lower numbered houses, skipping the house
+ * they came from, so every other house gets one seed per lap of eleven and the first few houses
+ * get one more. Shared by the model and the view so that both always sow the same way.
+ */
+public final class SowingTable
+{
+	/**
+	 * The most seeds a house can hold.
+	 */
+	public static final int MAX_SEEDS = 48;
+
+	private static final int NUMBER_OF_HOUSES = 12, HOUSES_PER_LAP = NUMBER_OF_HOUSES - 1;
+
+	// RECEIVERS[origin * 11 + i] is the house the i-th seed of each lap goes to
+	private static final byte[] RECEIVERS = new byte[NUMBER_OF_HOUSES * HOUSES_PER_LAP];
+	// INCREMENTS[(origin * 49 + seedCount) * 12 + house] is how many seeds the house gets
+	private static final byte[] INCREMENTS = new byte[NUMBER_OF_HOUSES * (MAX_SEEDS + 1) * NUMBER_OF_HOUSES];
+	private static final byte[] LANDINGS = new byte[NUMBER_OF_HOUSES * (MAX_SEEDS + 1)];
+
+	static
+	{
+		for (int origin = 0; origin < NUMBER_OF_HOUSES; origin++)
+		{
+			for (int i = 0; i < HOUSES_PER_LAP; i++)
+				RECEIVERS[origin * HOUSES_PER_LAP + i] = (byte) ((origin - 1 - i + NUMBER_OF_HOUSES) % NUMBER_OF_HOUSES);
+			LANDINGS[origin * (MAX_SEEDS + 1)] = -1;
+			for (int seedCount = 1; seedCount <= MAX_SEEDS; seedCount++)
+			{
+				int row = origin * (MAX_SEEDS + 1) + seedCount;
+				System.arraycopy(INCREMENTS, (row - 1) * NUMBER_OF_HOUSES, INCREMENTS, row * NUMBER_OF_HOUSES, NUMBER_OF_HOUSES);
+				int landing = receiver(origin, seedCount - 1);
+				INCREMENTS[row * NUMBER_OF_HOUSES + landing]++;
+				LANDINGS[row] = (byte) landing;
+			}
+		}
+	}
+
+	private SowingTable()
+	{
+	}
+
+	/**
+	 * @return the house the specified seed, counting from 0, goes to when the origin house is sown.
+	 */
+	public static int receiver(int origin, int seedIndex)
+	{
+		return RECEIVERS[origin * HOUSES_PER_LAP + seedIndex % HOUSES_PER_LAP];
+	}
+
+	/**
+	 * @return the number of seeds the house gets when the origin house is sown with the specified number of seeds.
+	 */
+	public static int increment(int origin, int seedCount, int houseID)
+	{
+		return INCREMENTS[(origin * (MAX_SEEDS + 1) + seedCount) * NUMBER_OF_HOUSES + houseID];
+	}
+
+	/**
+	 * @return the house the last seed lands in when the origin house is sown with the specified number of seeds, or -1 for no seeds.
+	 */
+	public static int landing(int origin, int seedCount)
+	{
+		return LANDINGS[origin * (MAX_SEEDS + 1) + seedCount];
+	}
+}
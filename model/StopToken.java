@@ -0,0 +1,26 @@
+package model;
+
+/**
+ * Lets one thread ask a search running on another to return early. The token is made before the
+ * search is handed over, so a stop can never come too early for the search to see it.
+ */
+public final class StopToken
+{
+	private volatile boolean stopped;
+
+	/**
+	 * Asks the searches given this token to return as soon as they can.
+	 */
+	public void stop()
+	{
+		stopped = true;
+	}
+
+	/**
+	 * @return whether the searches given this token have been asked to return.
+	 */
+	public boolean isStopped()
+	{
+		return stopped;
+	}
+}
@@ -0,0 +1,222 @@
+package model;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Read-only endgame tablebase giving the result of perfect play from every position with few seeds left.
+ *
+ * The value of a position is the number of the remaining seeds the player to move ends up with,
+ * less the number their opponent ends up with, when both play perfectly. Positions are stored as
+ * though player 0 were to move: the board of a position with player 1 to move is turned around first.
+ * The positions with a given number of seeds on the board form a level, and each position within
+ * a level is numbered by ranking its seed counts, one signed byte per position.
+ *
+ * The file is memory-mapped, so probing reads no more than the page holding the value and never
+ * allocates. Files are written by tools.TablebaseGenerator.
+ */
+public final class Tablebase
+{
+	/**
+	 * Marks a tablebase file, "OWTB".
+	 */
+	public static final int MAGIC = 0x4F575442;
+	/**
+	 * The largest number of seeds a tablebase can hold positions for, keeping each level under 2 GB.
+	 */
+	public static final int MAX_SUPPORTED_SEEDS = 24;
+	/**
+	 * Size of the file header: the magic number then the largest number of seeds held.
+	 */
+	public static final int HEADER_SIZE = 8;
+
+	static final int NUMBER_OF_HOUSES = 12;
+
+	// BINOMIAL[n][k] for n up to MAX_SUPPORTED_SEEDS + NUMBER_OF_HOUSES
+	private static final long[][] BINOMIAL = new long[MAX_SUPPORTED_SEEDS + NUMBER_OF_HOUSES + 1][NUMBER_OF_HOUSES];
+
+	static
+	{
+		for (int n = 0; n < BINOMIAL.length; n++)
+		{
+			BINOMIAL[n][0] = 1;
+			for (int k = 1; k < NUMBER_OF_HOUSES && k <= n; k++)
+				BINOMIAL[n][k] = BINOMIAL[n - 1][k - 1] + (k < n ? BINOMIAL[n - 1][k] : 0);
+		}
+	}
+
+	private static Tablebase defaultTablebase;
+	private static String defaultPath;
+
+	private final int maxSeeds;
+	private final MappedByteBuffer[] levels;
+
+	private Tablebase(int maxSeeds, MappedByteBuffer[] levels)
+	{
+		this.maxSeeds = maxSeeds;
+		this.levels = levels;
+	}
+
+	/**
+	 * Opens a tablebase file.
+	 *
+	 * @throws IOException if the file cannot be read or is not a tablebase.
+	 */
+	public static Tablebase open(Path path) throws IOException
+	{
+		try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ))
+		{
+			ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE);
+			channel.read(header, 0);
+			header.flip();
+			if (header.remaining() < header.capacity() || header.getInt() != MAGIC)
+				throw new IOException(path + " is not a tablebase");
+			int maxSeeds = header.getInt();
+			if (maxSeeds < 0 || maxSeeds > MAX_SUPPORTED_SEEDS)
+				throw new IOException(path + " holds an unsupported number of seeds: " + maxSeeds);
+			if (channel.size() < HEADER_SIZE + offset(maxSeeds + 1))
+				throw new IOException(path + " is truncated");
+
+			// The mapping stays valid after the channel is closed
+			MappedByteBuffer[] levels = new MappedByteBuffer[maxSeeds + 1];
+			for (int seeds = 0; seeds <= maxSeeds; seeds++)
+				levels[seeds] = channel.map(FileChannel.MapMode.READ_ONLY, HEADER_SIZE + offset(seeds), positionCount(seeds));
+			return new Tablebase(maxSeeds, levels);
+		}
+	}
+
+	/**
+	 * Get the tablebase named by the oware.tablebase system property, opened the first time it is asked for each path.
+	 *
+	 * @return the default tablebase, or null if none is configured.
+	 * @throws UncheckedIOException if the tablebase configured cannot be opened.
+	 */
+	public static synchronized Tablebase getDefault()
+	{
+		String path = System.getProperty("oware.tablebase");
+		if (path == null)
+			return null;
+		if (!path.equals(defaultPath))
+		{
+			try
+			{
+				defaultTablebase = open(Paths.get(path));
+			}
+			catch (IOException e)
+			{
+				throw new UncheckedIOException("Cannot open the tablebase " + path + " set by oware.tablebase", e);
+			}
+			defaultPath = path;
+		}
+		return defaultTablebase;
+	}
+
+	/**
+	 * Get the largest number of seeds on the board that the tablebase holds positions for.
+	 */
+	public int getMaxSeeds()
+	{
+		return maxSeeds;
+	}
+
+	/**
+	 * Tests whether the tablebase holds the current position of the game.
+	 *
+	 * @return true if the game has few enough seeds left on the board.
+	 */
+	public boolean contains(Game game)
+	{
+		return seedsOnBoard(game) <= maxSeeds;
+	}
+
+	/**
+	 * Looks up the value of the current position of the game for the player to move.
+	 *
+	 * @return the seeds the player to move gains from the board, less those their opponent gains.
+	 * @throws IllegalArgumentException if the tablebase does not hold the position.
+	 */
+	public int probe(Game game)
+	{
+		int seeds = seedsOnBoard(game);
+		if (seeds > maxSeeds)
+			throw new IllegalArgumentException("The tablebase only holds positions with up to " + maxSeeds + " seeds");
+		return levels[seeds].get((int) rank(game));
+	}
+
+	/**
+	 * Get the number of positions with the specified number of seeds on the board.
+	 */
+	public static long positionCount(int seeds)
+	{
+		return BINOMIAL[seeds + NUMBER_OF_HOUSES - 1][NUMBER_OF_HOUSES - 1];
+	}
+
+	/**
+	 * Get the position of the game's board within its level, with the board turned around
+	 * if player 1 is to move.
+	 */
+	public static long rank(Game game)
+	{
+		int rotation = game.getPlayerTurn() * (NUMBER_OF_HOUSES / 2);
+		int remaining = seedsOnBoard(game);
+		long rank = 0;
+		// Boards are ordered by the seed count of house 0, then house 1, and so on.
+		// The boards that come before this one at house i are counted with the hockey stick identity.
+		for (int i = 0; i < NUMBER_OF_HOUSES - 1 && remaining > 0; i++)
+		{
+			int seeds = game.getSeedCount((i + rotation) % NUMBER_OF_HOUSES);
+			int housesAfter = NUMBER_OF_HOUSES - 1 - i;
+			rank += BINOMIAL[remaining + housesAfter][housesAfter] - BINOMIAL[remaining - seeds + housesAfter][housesAfter];
+			remaining -= seeds;
+		}
+		return rank;
+	}
+
+	/**
+	 * Fills the array with the seed counts of the board at the specified position of a level,
+	 * the reverse of rank().
+	 */
+	public static void unrank(long rank, int seeds, int[] houseSeeds)
+	{
+		int remaining = seeds;
+		for (int i = 0; i < NUMBER_OF_HOUSES - 1; i++)
+		{
+			int housesAfter = NUMBER_OF_HOUSES - 1 - i;
+			int count = 0;
+			// Each extra seed in this house skips every board with fewer seeds here
+			while (count < remaining)
+			{
+				long skipped = BINOMIAL[remaining - count - 1 + housesAfter][housesAfter - 1];
+				if (rank < skipped)
+					break;
+				rank -= skipped;
+				count++;
+			}
+			houseSeeds[i] = count;
+			remaining -= count;
+		}
+		houseSeeds[NUMBER_OF_HOUSES - 1] = remaining;
+	}
+
+	/**
+	 * Get where a level starts in the data following the header.
+	 */
+	public static long offset(int seeds)
+	{
+		long offset = 0;
+		for (int i = 0; i < seeds; i++)
+			offset += positionCount(i);
+		return offset;
+	}
+
+	private static int seedsOnBoard(Game game)
+	{
+		return game.playerSeedCount(0) + game.playerSeedCount(1);
+	}
+}
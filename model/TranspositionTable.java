@@ -0,0 +1,147 @@
+package model;
+
+import java.util.Arrays;
+
+/**
+ * Fixed-size hash table of search results, keyed by Zobrist hash.
+ * Entries are held in two primitive arrays so that probing and storing never allocate.
+ * Each bucket has two slots: the first keeps the deepest result of the current search
+ * and the second is always replaced.
+ * The table can be shared by several searching threads without locking: each slot stores
+ * its key XORed with its data, so a slot torn by concurrent writes simply fails to match.
+ */
+public class TranspositionTable
+{
+	/**
+	 * Default size of a table in megabytes, set with the oware.tt.mb system property.
+	 */
+	public static final int DEFAULT_SIZE_MB = Integer.getInteger("oware.tt.mb", 16);
+
+	static final int EXACT = 1, LOWER_BOUND = 2, UPPER_BOUND = 3;
+
+	private static final int ENTRY_BYTES = 16;
+
+	// data layout: score (bits 0-15, signed), depth (16-23), bound (24-25), move (26-29), generation (32-39)
+	private final long[] keys;
+	private final long[] data;
+	private final int mask;
+	private int generation;
+
+	/**
+	 * Construct a table using the default size
+	 */
+	public TranspositionTable()
+	{
+		this(DEFAULT_SIZE_MB);
+	}
+
+	/**
+	 * Construct a table taking up to the specified number of megabytes
+	 * @param megabytes the memory the table may use, at least 1
+	 */
+	public TranspositionTable(int megabytes)
+	{
+		if (megabytes < 1)
+			throw new IllegalArgumentException("Transposition table size must be at least 1 MB");
+		int entries = Integer.highestOneBit((int) Math.min((long) megabytes * 1024 * 1024 / ENTRY_BYTES, 1 << 30));
+		keys = new long[entries];
+		data = new long[entries];
+		mask = entries - 1;
+	}
+
+	/**
+	 * Starts a new search, so that results from earlier searches are replaced first.
+	 */
+	public void newSearch()
+	{
+		generation = (generation + 1) & 0xFF;
+	}
+
+	/**
+	 * Removes all entries from the table.
+	 */
+	public void clear()
+	{
+		Arrays.fill(keys, 0);
+		Arrays.fill(data, 0);
+	}
+
+	/**
+	 * Looks up the entry stored for a position.
+	 *
+	 * @return the packed entry, or 0 if the position is not in the table.
+	 */
+	public long probe(long key)
+	{
+		int index = (int) key & mask & ~1;
+		long entry = data[index];
+		if (entry != 0 && (keys[index] ^ entry) == key)
+			return entry;
+		entry = data[index + 1];
+		if (entry != 0 && (keys[index + 1] ^ entry) == key)
+			return entry;
+		return 0;
+	}
+
+	/**
+	 * Stores the result of searching a position.
+	 *
+	 * @param key the hash of the position
+	 * @param depth the depth that was searched
+	 * @param bound EXACT, LOWER_BOUND or UPPER_BOUND
+	 * @param move the best house found, or -1 if none
+	 * @param score the score of the position
+	 */
+	public void store(long key, int depth, int bound, int move, int score)
+	{
+		long entry = (score & 0xFFFFL) | ((long) depth << 16) | ((long) bound << 24)
+			| ((long) (move & 0xF) << 26) | ((long) generation << 32);
+		int index = (int) key & mask & ~1;
+		long current = data[index];
+		if (current == 0 || (keys[index] ^ current) == key || depth >= depth(current)
+			|| generation(current) != generation)
+		{
+			keys[index] = key ^ entry;
+			data[index] = entry;
+		}
+		else
+		{
+			keys[index + 1] = key ^ entry;
+			data[index + 1] = entry;
+		}
+	}
+
+	/**
+	 * Get the number of entries the table can hold.
+	 */
+	public int capacity()
+	{
+		return keys.length;
+	}
+
+	static int score(long entry)
+	{
+		return (short) entry;
+	}
+
+	static int depth(long entry)
+	{
+		return (int) (entry >>> 16) & 0xFF;
+	}
+
+	static int bound(long entry)
+	{
+		return (int) (entry >>> 24) & 0x3;
+	}
+
+	static int move(long entry)
+	{
+		int move = (int) (entry >>> 26) & 0xF;
+		return move == 0xF ? -1 : move;
+	}
+
+	private static int generation(long entry)
+	{
+		return (int) (entry >>> 32) & 0xFF;
+	}
+}
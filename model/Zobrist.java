@@ -0,0 +1,47 @@
+package model;
+
+import java.util.Random;
+
+/**
+ * Random keys used to hash game positions.
+ * Keys come from a fixed seed so that hashes are the same across runs and can be stored in files.
+ */
+final class Zobrist
+{
+	static final int MAX_SEEDS = 48;
+
+	private static final long SEED = 0x0A3A9EL;
+	private static final long[] HOUSE_KEYS = new long[12 * (MAX_SEEDS + 1)];
+	private static final long[] SCORE_KEYS = new long[2 * (MAX_SEEDS + 1)];
+	static final long TURN_KEY;
+
+	static
+	{
+		Random random = new Random(SEED);
+		for (int i = 0; i < HOUSE_KEYS.length; i++)
+			HOUSE_KEYS[i] = random.nextLong();
+		for (int i = 0; i < SCORE_KEYS.length; i++)
+			SCORE_KEYS[i] = random.nextLong();
+		TURN_KEY = random.nextLong();
+	}
+
+	private Zobrist()
+	{
+	}
+
+	/**
+	 * Get the key for a house holding the specified number of seeds.
+	 */
+	static long house(int houseID, int seedCount)
+	{
+		return HOUSE_KEYS[houseID * (MAX_SEEDS + 1) + seedCount];
+	}
+
+	/**
+	 * Get the key for a player having captured the specified number of seeds.
+	 */
+	static long score(int player, int score)
+	{
+		return SCORE_KEYS[player * (MAX_SEEDS + 1) + score];
+	}
+}
@@ -0,0 +1,360 @@
+package server;
+
+import model.Engine;
+import model.GameState;
+import model.PositionCache;
+import model.SearchEngine;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.PrintWriter;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * A headless server hosting many games at once over a local socket. Every connection is a session
+ * playing one game at a time, and runs on its own virtual thread, so idle sessions cost little more
+ * than their socket. AI moves are searched on a small fixed pool of platform threads, which bounds
+ * the CPU the engines can take, and the session's virtual thread simply waits for the result.
+ * The engines share one PositionCache, so a position any session has reached before is answered
+ * without searching.
+ *
+ * The protocol is one line per request and one line per reply:
+ * <pre>
+ * NEW [AI]     start a new game, with the AI playing player 1 if AI is given
+ * MOVE house   sow a house, followed by the AI's reply if it is the AI's turn
+ * STATE        get the state of the game
+ * STATS        get the number of open sessions, the number of moves played and the AI cache's hits and misses
+ * QUIT         close the session
+ * </pre>
+ * A reply is either "OK seeds score0 score1 turn status", with the seeds of the twelve houses separated
+ * by commas and the status PLAYING, WON 0, WON 1 or DRAWN, or "ERR reason". When the player to move
+ * cannot sow, the game ends and each player takes the seeds on their own side.
+ *
+ * Requires Java 21 for virtual threads.
+ *
+ * Usage: java server.GameServer [port] [aiThreads] [aiDepth] [cacheEntries]
+ */
+public class GameServer implements AutoCloseable
+{
+	public static final int DEFAULT_PORT = 7878, DEFAULT_AI_DEPTH = 8, DEFAULT_CACHE_ENTRIES = 1 << 16;
+
+	private static final int HOUSES_PER_SIDE = 6, NUMBER_OF_HOUSES = 12, TRANSPOSITION_TABLE_MEGABYTES = 4;
+	// Waits after failing to accept a connection, doubling from the first to the last while the failures go on
+	private static final long MIN_ACCEPT_BACKOFF_MILLIS = 10, MAX_ACCEPT_BACKOFF_MILLIS = 1000;
+	private static final System.Logger LOGGER = System.getLogger(GameServer.class.getName());
+
+	private final ServerSocket serverSocket;
+	private final ExecutorService sessions = Executors.newVirtualThreadPerTaskExecutor();
+	private final ExecutorService aiPool;
+	private final ThreadLocal<Engine> engines;
+	private final PositionCache positionCache;
+	private final AtomicInteger openSessions = new AtomicInteger();
+	private final LongAdder movesPlayed = new LongAdder();
+
+	/**
+	 * Construct a server listening on the loopback address with a cache of the default size. Call start() to accept sessions.
+	 * @param port the port to listen on, or 0 for any free port
+	 * @param aiThreads the number of AI moves searched at once
+	 * @param aiDepth the depth the AI searches to
+	 * @throws IOException if the port cannot be listened on.
+	 */
+	public GameServer(int port, int aiThreads, int aiDepth) throws IOException
+	{
+		this(port, aiThreads, aiDepth, DEFAULT_CACHE_ENTRIES);
+	}
+
+	/**
+	 * Construct a server listening on the loopback address. Call start() to accept sessions.
+	 * @param port the port to listen on, or 0 for any free port
+	 * @param aiThreads the number of AI moves searched at once
+	 * @param aiDepth the depth the AI searches to
+	 * @param cacheEntries the number of AI answers shared between sessions
+	 * @throws IOException if the port cannot be listened on.
+	 */
+	public GameServer(int port, int aiThreads, int aiDepth, int cacheEntries) throws IOException
+	{
+		if (aiThreads < 1 || aiDepth < 1)
+			throw new IllegalArgumentException("AI threads and depth must be at least 1");
+		serverSocket = new ServerSocket(port, 1024, InetAddress.getLoopbackAddress());
+		aiPool = Executors.newFixedThreadPool(aiThreads, runnable -> {
+			Thread thread = new Thread(runnable, "oware-ai");
+			thread.setDaemon(true);
+			return thread;
+		});
+		positionCache = new PositionCache(cacheEntries);
+		engines = ThreadLocal.withInitial(() -> {
+			SearchEngine engine = new SearchEngine(aiDepth, TRANSPOSITION_TABLE_MEGABYTES, 1);
+			engine.setPositionCache(positionCache);
+			return engine;
+		});
+	}
+
+	/**
+	 * Starts accepting sessions on a virtual thread and returns.
+	 */
+	public void start()
+	{
+		Thread.ofVirtual().name("oware-accept").start(this::acceptSessions);
+	}
+
+	private void acceptSessions()
+	{
+		long backoffMillis = 0;
+		while (!serverSocket.isClosed())
+		{
+			try
+			{
+				Socket socket = serverSocket.accept();
+				sessions.submit(() -> runSession(socket));
+				backoffMillis = 0;
+			}
+			catch (IOException e)
+			{
+				if (serverSocket.isClosed())
+					return;
+				// Such as running out of file descriptors, which retrying at once would not fix
+				backoffMillis = Math.min(Math.max(backoffMillis * 2, MIN_ACCEPT_BACKOFF_MILLIS), MAX_ACCEPT_BACKOFF_MILLIS);
+				LOGGER.log(System.Logger.Level.WARNING, "Could not accept a session, retrying in " + backoffMillis + " ms", e);
+				try
+				{
+					Thread.sleep(backoffMillis);
+				}
+				catch (InterruptedException interrupted)
+				{
+					return;
+				}
+			}
+		}
+	}
+
+	private void runSession(Socket socket)
+	{
+		openSessions.incrementAndGet();
+		try (socket;
+			BufferedReader in = new BufferedReader(new InputStreamReader(socket.getInputStream(), StandardCharsets.US_ASCII));
+			PrintWriter out = new PrintWriter(new OutputStreamWriter(socket.getOutputStream(), StandardCharsets.US_ASCII)))
+		{
+			Session session = new Session();
+			String line;
+			while ((line = in.readLine()) != null)
+			{
+				if (line.trim().equalsIgnoreCase("QUIT"))
+					break;
+				out.println(session.handle(line.trim()));
+				out.flush();
+			}
+		}
+		catch (IOException e)
+		{
+			// The client went away
+		}
+		finally
+		{
+			openSessions.decrementAndGet();
+		}
+	}
+
+	/**
+	 * @return the port the server listens on.
+	 */
+	public int getPort()
+	{
+		return serverSocket.getLocalPort();
+	}
+
+	/**
+	 * @return the number of sessions currently connected.
+	 */
+	public int getOpenSessions()
+	{
+		return openSessions.get();
+	}
+
+	/**
+	 * @return the number of moves played, by players and the AI, since the server started.
+	 */
+	public long getMovesPlayed()
+	{
+		return movesPlayed.sum();
+	}
+
+	/**
+	 * @return the cache of AI answers shared by the sessions.
+	 */
+	public PositionCache getPositionCache()
+	{
+		return positionCache;
+	}
+
+	/**
+	 * Stops accepting sessions and closes the open ones.
+	 */
+	@Override
+	public void close() throws IOException
+	{
+		serverSocket.close();
+		sessions.shutdownNow();
+		aiPool.shutdownNow();
+	}
+
+	/**
+	 * The game of one connection. Only the session's own virtual thread touches it.
+	 */
+	private final class Session
+	{
+		private GameState state;
+		private boolean againstAI;
+
+		String handle(String request)
+		{
+			String[] words = request.split("\\s+");
+			switch (words[0].toUpperCase())
+			{
+			case "NEW":
+				againstAI = words.length > 1 && words[1].equalsIgnoreCase("AI");
+				state = GameState.initial(ThreadLocalRandom.current().nextInt(2));
+				if (isAITurn() && !playAIMove())
+				{
+					state = null;
+					return "ERR the AI failed to move, send NEW again";
+				}
+				return reply();
+			case "MOVE":
+				if (state == null)
+					return "ERR no game, send NEW first";
+				if (hasEnded())
+					return "ERR the game has ended";
+				if (isAITurn())
+					return "ERR it is the AI's turn";
+				int houseID;
+				try
+				{
+					houseID = Integer.parseInt(words.length > 1 ? words[1] : "");
+				}
+				catch (NumberFormatException e)
+				{
+					return "ERR MOVE needs a house number";
+				}
+				if (houseID < 0 || houseID >= NUMBER_OF_HOUSES || !state.canSow(houseID))
+					return "ERR house " + houseID + " cannot be sown";
+				GameState beforeMove = state;
+				play(houseID);
+				if (isAITurn() && !hasEnded() && !playAIMove())
+				{
+					// Take the move back, so the player can try it again
+					state = beforeMove;
+					movesPlayed.decrement();
+					return "ERR the AI failed to move, the move was taken back";
+				}
+				return reply();
+			case "STATE":
+				return state == null ? "ERR no game, send NEW first" : reply();
+			case "STATS":
+				return "OK sessions " + openSessions.get() + " moves " + movesPlayed.sum()
+					+ " cacheHits " + positionCache.getHitCount() + " cacheMisses " + positionCache.getMissCount();
+			default:
+				return "ERR unknown request " + words[0];
+			}
+		}
+
+		private boolean isAITurn()
+		{
+			return againstAI && state.getPlayerTurn() == 1;
+		}
+
+		private boolean hasEnded()
+		{
+			return state.hasEnded() || state.legalMoves() == 0;
+		}
+
+		private void play(int houseID)
+		{
+			state = state.apply(houseID);
+			movesPlayed.increment();
+		}
+
+		// The search runs on the AI pool while this virtual thread waits without holding a carrier thread
+		private boolean playAIMove()
+		{
+			GameState searched = state;
+			Future<Integer> move = aiPool.submit(() -> engines.get().bestMove(searched.toGame(false)));
+			try
+			{
+				play(move.get());
+				return true;
+			}
+			catch (InterruptedException e)
+			{
+				Thread.currentThread().interrupt();
+				return false;
+			}
+			catch (ExecutionException e)
+			{
+				LOGGER.log(System.Logger.Level.ERROR, "The AI failed to move from " + searched, e.getCause());
+				return false;
+			}
+		}
+
+		private String reply()
+		{
+			StringBuilder reply = new StringBuilder("OK ");
+			for (int i = 0; i < NUMBER_OF_HOUSES; i++)
+			{
+				if (i > 0)
+					reply.append(',');
+				reply.append(state.getSeedCount(i));
+			}
+			reply.append(' ').append(state.getScore(0)).append(' ').append(state.getScore(1))
+				.append(' ').append(state.getPlayerTurn()).append(' ').append(status());
+			return reply.toString();
+		}
+
+		private String status()
+		{
+			int difference;
+			if (state.winner() != -1)
+				difference = state.winner() == 0 ? 1 : -1;
+			else if (state.hasDrawn())
+				difference = 0;
+			else if (state.legalMoves() == 0)
+				difference = state.getScore(0) + sideSeeds(0) - state.getScore(1) - sideSeeds(1);
+			else
+				return "PLAYING";
+			if (difference == 0)
+				return "DRAWN";
+			return difference > 0 ? "WON 0" : "WON 1";
+		}
+
+		private int sideSeeds(int player)
+		{
+			int seedCount = 0;
+			for (int i = player * HOUSES_PER_SIDE; i < (player + 1) * HOUSES_PER_SIDE; i++)
+				seedCount += state.getSeedCount(i);
+			return seedCount;
+		}
+	}
+
+	public static void main(String[] args) throws IOException
+	{
+		int port = args.length > 0 ? Integer.parseInt(args[0]) : DEFAULT_PORT;
+		int aiThreads = args.length > 1 ? Integer.parseInt(args[1]) : Runtime.getRuntime().availableProcessors();
+		int aiDepth = args.length > 2 ? Integer.parseInt(args[2]) : DEFAULT_AI_DEPTH;
+		int cacheEntries = args.length > 3 ? Integer.parseInt(args[3]) : DEFAULT_CACHE_ENTRIES;
+		GameServer server = new GameServer(port, aiThreads, aiDepth, cacheEntries);
+		System.out.println("Listening on port " + server.getPort() + " with " + aiThreads + " AI threads searching to depth " + aiDepth);
+		// Virtual threads do not keep the JVM alive, so the main thread accepts the sessions
+		server.acceptSessions();
+	}
+}
@@ -0,0 +1,205 @@
+package server;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.PrintWriter;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Puts a GameServer under load: opens a number of idle sessions that start a game and then wait, and
+ * a number of busy sessions that play random legal moves as fast as the server answers, each on its
+ * own virtual thread. Reports the moves per second, the games finished and the latency of the replies.
+ *
+ * Usage: java server.LoadGenerator host port busySessions idleSessions seconds [AI] [seed]
+ */
+public class LoadGenerator
+{
+	private static final int NUMBER_OF_HOUSES = 12, HOUSES_PER_SIDE = 6;
+	// Latencies are counted in buckets of powers of two microseconds
+	private static final int LATENCY_BUCKETS = 32;
+
+	private final String host;
+	private final int port;
+	private final boolean againstAI;
+	private final long seed;
+	private final LongAdder requests = new LongAdder(), gamesFinished = new LongAdder(), errors = new LongAdder();
+	private final AtomicLongArray latencies = new AtomicLongArray(LATENCY_BUCKETS);
+	private volatile boolean running = true;
+
+	/**
+	 * Construct a load generator
+	 * @param host the host the server runs on
+	 * @param port the port the server listens on
+	 * @param againstAI whether the busy sessions play against the server's AI
+	 * @param seed the seed the busy sessions choose their moves from
+	 */
+	public LoadGenerator(String host, int port, boolean againstAI, long seed)
+	{
+		this.host = host;
+		this.port = port;
+		this.againstAI = againstAI;
+		this.seed = seed;
+	}
+
+	/**
+	 * Runs the load for the specified time and prints what the server managed.
+	 *
+	 * @throws IOException if the idle sessions cannot connect.
+	 */
+	public void run(int busySessions, int idleSessions, int seconds) throws IOException, InterruptedException
+	{
+		List<Socket> idle = new ArrayList<Socket>(idleSessions);
+		try
+		{
+			for (int i = 0; i < idleSessions; i++)
+			{
+				Socket socket = new Socket(host, port);
+				idle.add(socket);
+				PrintWriter out = new PrintWriter(new OutputStreamWriter(socket.getOutputStream(), StandardCharsets.US_ASCII), true);
+				out.println("NEW");
+				new BufferedReader(new InputStreamReader(socket.getInputStream(), StandardCharsets.US_ASCII)).readLine();
+			}
+			System.out.println("Opened " + idleSessions + " idle sessions");
+
+			ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor();
+			long start = System.nanoTime();
+			for (int i = 0; i < busySessions; i++)
+			{
+				SplittableRandom random = new SplittableRandom(seed + i);
+				executor.submit(() -> play(random));
+			}
+			Thread.sleep(seconds * 1000L);
+			running = false;
+			executor.shutdown();
+			executor.awaitTermination(1, TimeUnit.MINUTES);
+			long nanos = System.nanoTime() - start;
+
+			System.out.println(String.format("%d requests in %.1f s (%.0f requests/s) from %d busy sessions, %d games finished, %d errors",
+				requests.sum(), nanos / 1e9, requests.sum() * 1e9 / nanos, busySessions, gamesFinished.sum(), errors.sum()));
+			System.out.println("Latency p50 < " + percentile(0.50) + " us, p99 < " + percentile(0.99) + " us, p99.9 < " + percentile(0.999) + " us");
+			System.out.println("Server: " + request(idle.isEmpty() ? null : idle.get(0), "STATS"));
+		}
+		finally
+		{
+			for (Socket socket : idle)
+				socket.close();
+		}
+	}
+
+	private void play(SplittableRandom random)
+	{
+		try (Socket socket = new Socket(host, port);
+			BufferedReader in = new BufferedReader(new InputStreamReader(socket.getInputStream(), StandardCharsets.US_ASCII));
+			PrintWriter out = new PrintWriter(new OutputStreamWriter(socket.getOutputStream(), StandardCharsets.US_ASCII), true))
+		{
+			String reply = timed(in, out, againstAI ? "NEW AI" : "NEW");
+			while (running)
+			{
+				String[] fields = reply.split(" ");
+				if (!fields[0].equals("OK"))
+				{
+					errors.increment();
+					reply = timed(in, out, againstAI ? "NEW AI" : "NEW");
+					continue;
+				}
+				int move = fields[5].equals("PLAYING") ? randomMove(fields, random) : -1;
+				if (move == -1)
+				{
+					gamesFinished.increment();
+					reply = timed(in, out, againstAI ? "NEW AI" : "NEW");
+				}
+				else
+					reply = timed(in, out, "MOVE " + move);
+			}
+		}
+		catch (IOException e)
+		{
+			errors.increment();
+		}
+	}
+
+	private String timed(BufferedReader in, PrintWriter out, String request) throws IOException
+	{
+		long start = System.nanoTime();
+		out.println(request);
+		String reply = in.readLine();
+		if (reply == null)
+			throw new IOException("The server closed the session");
+		long micros = Math.max(1, (System.nanoTime() - start) / 1000);
+		latencies.incrementAndGet(Math.min(LATENCY_BUCKETS - 1, 63 - Long.numberOfLeadingZeros(micros)));
+		requests.increment();
+		return reply;
+	}
+
+	// Picks a random house the player to move can sow, from a reply's seeds and turn
+	private static int randomMove(String[] fields, SplittableRandom random)
+	{
+		String[] houses = fields[1].split(",");
+		int turn = Integer.parseInt(fields[4]), startingHouse = turn * HOUSES_PER_SIDE, opponentSeeds = 0;
+		for (int i = 0; i < HOUSES_PER_SIDE; i++)
+			opponentSeeds += Integer.parseInt(houses[(startingHouse + HOUSES_PER_SIDE + i) % NUMBER_OF_HOUSES]);
+		int[] moves = new int[HOUSES_PER_SIDE];
+		int count = 0;
+		for (int i = 0; i < HOUSES_PER_SIDE; i++)
+		{
+			int seedCount = Integer.parseInt(houses[startingHouse + i]);
+			// An opponent with no seeds must be given some
+			if (seedCount > 0 && (opponentSeeds > 0 || seedCount > i))
+				moves[count++] = startingHouse + i;
+		}
+		return count == 0 ? -1 : moves[random.nextInt(count)];
+	}
+
+	private long percentile(double fraction)
+	{
+		long total = 0;
+		for (int i = 0; i < LATENCY_BUCKETS; i++)
+			total += latencies.get(i);
+		long seen = 0;
+		for (int i = 0; i < LATENCY_BUCKETS; i++)
+		{
+			seen += latencies.get(i);
+			if (seen >= fraction * total)
+				return 1L << (i + 1);
+		}
+		return 1L << LATENCY_BUCKETS;
+	}
+
+	private String request(Socket socket, String request) throws IOException
+	{
+		if (socket == null)
+		{
+			try (Socket fresh = new Socket(host, port))
+			{
+				return request(fresh, request);
+			}
+		}
+		PrintWriter out = new PrintWriter(new OutputStreamWriter(socket.getOutputStream(), StandardCharsets.US_ASCII), true);
+		out.println(request);
+		return new BufferedReader(new InputStreamReader(socket.getInputStream(), StandardCharsets.US_ASCII)).readLine();
+	}
+
+	public static void main(String[] args) throws IOException, InterruptedException
+	{
+		if (args.length < 5)
+		{
+			System.out.println("Usage: java server.LoadGenerator host port busySessions idleSessions seconds [AI] [seed]");
+			return;
+		}
+		boolean againstAI = args.length > 5 && args[5].equalsIgnoreCase("AI");
+		long seed = args.length > 6 ? Long.parseLong(args[6]) : System.nanoTime();
+		new LoadGenerator(args[0], Integer.parseInt(args[1]), againstAI, seed)
+			.run(Integer.parseInt(args[2]), Integer.parseInt(args[3]), Integer.parseInt(args[4]));
+	}
+}
@@ -0,0 +1,77 @@
+package tests;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import server.GameServer;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.PrintWriter;
+import java.net.InetAddress;
+import java.net.Socket;
+
+import static junit.framework.TestCase.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class GameServerTest {
+    private GameServer server;
+    private Socket socket;
+    private BufferedReader in;
+    private PrintWriter out;
+
+    @Before
+    public void setUp() throws IOException {
+        server = new GameServer(0, 1, 4);
+        server.start();
+        socket = new Socket(InetAddress.getLoopbackAddress(), server.getPort());
+        in = new BufferedReader(new InputStreamReader(socket.getInputStream()));
+        out = new PrintWriter(socket.getOutputStream(), true);
+    }
+
+    @After
+    public void tearDown() throws IOException {
+        socket.close();
+        server.close();
+    }
+
+    private String request(String line) throws IOException {
+        out.println(line);
+        return in.readLine();
+    }
+
+    @Test
+    public void testNewAndMove() throws IOException {
+        String[] fields = request("NEW").split(" ");
+        assertEquals("A new game starts with 4 seeds in every house", fields[1], "4,4,4,4,4,4,4,4,4,4,4,4");
+        assertEquals("A new game is being played", fields[5], "PLAYING");
+
+        int turn = Integer.parseInt(fields[4]);
+        assertTrue("The opponent's house cannot be sown", request("MOVE " + ((1 - turn) * 6)).startsWith("ERR"));
+
+        fields = request("MOVE " + (turn * 6)).split(" ");
+        assertEquals("After a move it is the other player's turn", Integer.parseInt(fields[4]), 1 - turn);
+        assertEquals("Sown seeds leave the house empty", fields[1].split(",")[turn * 6], "0");
+        assertEquals("The move is counted", server.getMovesPlayed(), 1);
+    }
+
+    @Test
+    public void testAgainstAI() throws IOException {
+        String[] fields = request("NEW AI").split(" ");
+        assertEquals("The AI moves first if it starts, so it is always player 1's turn to play", fields[4], "0");
+
+        int house = fields[1].split(",")[0].equals("0") ? 1 : 0;
+        fields = request("MOVE " + house).split(" ");
+        assertEquals("The AI answers every move", fields[4], "0");
+    }
+
+    @Test
+    public void testErrors() throws IOException {
+        assertTrue("Moving before a game exists is an error", request("MOVE 1").startsWith("ERR"));
+        assertTrue("Unknown requests are errors", request("JUMP").startsWith("ERR"));
+        request("NEW");
+        assertTrue("A move needs a house number", request("MOVE x").startsWith("ERR"));
+        assertTrue("The session counts itself", request("STATS").startsWith("OK sessions 1"));
+    }
+}
@@ -0,0 +1,53 @@
+package tests;
+
+import model.Game;
+import model.GameState;
+import org.junit.Test;
+
+import static junit.framework.TestCase.assertEquals;
+import static junit.framework.TestCase.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class GameStateTest {
+    @Test
+    public void testInitial() {
+        GameState state = GameState.initial(1);
+
+        assertEquals("Every house starts with 4 seeds", state.getSeedCount(7), 4);
+        assertEquals("Nobody has scored yet", state.getScore(0), 0);
+        assertEquals("The chosen player moves first", state.getPlayerTurn(), 1);
+        assertEquals("Player 2 can sow all six houses", state.legalMoves(), 0b111111);
+    }
+
+    @Test
+    public void testApply() {
+        Game game = new Game(false);
+        game.setPosition(new int[] {4, 4, 4, 4, 4, 4, 4, 4, 4, 4, 4, 4}, 0, 0, 1);
+        GameState state = GameState.of(game);
+        int[] moves = {11, 0, 10, 1, 9, 2, 8};
+
+        for (int move : moves) {
+            GameState next = state.apply(move);
+            game.makeMove(move);
+            assertEquals("Applying a move gives the same position as making it", next, GameState.of(game));
+            assertEquals("Applying a move gives the same hash as making it", next.getHash(), game.getHash());
+            assertFalse("Applying a move leaves the old state as it was", next.equals(state));
+            state = next;
+        }
+        assertEquals("Player 2 captured the seeds in houses 0 and 1", state.getScore(1), 6);
+    }
+
+    @Test
+    public void testToGame() {
+        GameState state = GameState.initial(0).apply(3).apply(8);
+        Game game = state.toGame(false);
+
+        assertEquals("A game made from a state is in the same position", GameState.of(game), state);
+        assertTrue("A game made from a state has the same legal moves", game.legalMoves() == state.legalMoves());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testApplyIllegalMove() {
+        GameState.initial(0).apply(7);
+    }
+}
@@ -1,8 +1,10 @@
 package tests;
 
 import model.Game;
+import model.SearchEngine;
 import org.junit.Test;
 
+import java.time.Duration;
 import java.util.ArrayList;
 import java.util.stream.Collectors;
 import java.util.stream.Stream;
@@ -76,6 +78,39 @@ public class GameTest {
         assertTrue("I can sow my house", game.canSow(1));
     }
 
+    @Test
+    public void testCanSowAny() {
+        Game game = new Game(false);
+        game.setPosition(new int[] {0, 0, 0, 0, 0, 2, 0, 0, 0, 0, 0, 0}, 20, 26, 0);
+        assertFalse("Two seeds in house 5 cannot reach an opponent who has none", game.canSowAny());
+
+        game.setPosition(new int[] {0, 0, 0, 0, 0, 6, 0, 0, 0, 0, 0, 0}, 20, 22, 0);
+        assertTrue("Six seeds in house 5 reach an opponent who has none", game.canSowAny());
+
+        game.makeMove(5);
+        assertTrue("After being fed the opponent can sow", game.canSowAny());
+        game.unmakeMove();
+        game.makeMove(5);
+        game.makeMove(11);
+        assertTrue("Seeds counted while playing stay in step with the board", game.canSowAny());
+    }
+
+    @Test
+    public void testLegalMoves() {
+        Game game = new Game(false);
+        game.setPosition(new int[] {1, 0, 3, 0, 0, 2, 4, 4, 4, 4, 4, 4}, 5, 5, 0);
+        assertEquals("Every house with seeds can be sown", game.legalMoves(), 0b100101);
+
+        game.setPosition(new int[] {4, 4, 4, 4, 4, 4, 0, 1, 3, 0, 0, 6}, 2, 2, 1);
+        assertEquals("Player 2's moves are counted from house 6", game.legalMoves(), 0b100110);
+
+        game.setPosition(new int[] {1, 0, 3, 0, 0, 2, 0, 0, 0, 0, 0, 0}, 20, 20, 0);
+        assertEquals("Only houses that reach an opponent with no seeds can be sown", game.legalMoves(), 0b000101);
+
+        game.setPosition(new int[] {0, 1, 2, 0, 0, 0, 0, 0, 0, 0, 0, 0}, 20, 20, 0);
+        assertEquals("No house may be sown if none reaches an opponent with no seeds", game.legalMoves(), 0);
+    }
+
     @Test
     public void testIsAITurn() {
         Game game = new Game(true);
@@ -124,6 +159,27 @@ public class GameTest {
         assertEquals("After starting with player 2 with houses sowed 11, 0, 10, 1, 9, 2, 8, Player 2 can capture houses 0 and 1", capturedHouse, expectedCapturedHouses);
     }
 
+    @Test
+    public void testCaptureHouses() {
+        Game game = new Game(false);
+        if(game.getPlayerTurn() == 0) game.nextTurn(); // Default player turn is random; This prevents random results for the tests
+        game.sow(11); game.nextTurn();
+        game.sow(0); game.nextTurn();
+        game.sow(10); game.nextTurn();
+        game.sow(1); game.nextTurn();
+        game.sow(9); game.nextTurn();
+        game.sow(2); game.nextTurn();
+        game.sow(8);
+
+        assertEquals("Sowing house 8 ends in house 0", game.getLastSownHouse(), 0);
+        assertEquals("Player 2 captures houses 0 and 1 as a mask", game.captureHouses(), 0b11);
+
+        game.nextTurn();
+        assertEquals("The last sown house is forgotten on the next turn", game.getLastSownHouse(), -1);
+        assertEquals("Nothing is captured before sowing", game.captureHouses(), 0);
+        assertEquals("Capturing all of player 1's houses gives a mask of those that hold seeds", game.captureAllHouses(), 0b111100);
+    }
+
     @Test
     public void testCaptureAll() {
         Game game = new Game(false);
@@ -142,17 +198,40 @@ public class GameTest {
     public void testNextAIMove() {
         Game game = new Game(true);
         if(game.getPlayerTurn() == 1) game.nextTurn(); // Default player turn is random; This prevents random results for the tests
+        SearchEngine engine = new SearchEngine(12, 1);
+        game.setEngine(engine);
         game.sow(0);
         game.nextTurn();
 
-        assertEquals("After player 1 sowing house 0, AI will sow the best house(6)", game.nextAIMove(), 6);
+        // Several houses can share the best score, so any of them is a best house
+        int move = game.nextAIMove();
+        assertTrue("After player 1 sowing house 0, AI sows one of its own houses", move >= 6 && move < 12 && game.canSow(move));
+        assertEquals("After player 1 sowing house 0, AI sows a house with the best score", scoreAfter(game, move, 11), engine.getBestScore());
         game.sow(6);
         game.nextTurn();
 
         game.sow(1);
         game.nextTurn();
 
-        assertEquals("After player 1 sowing house 1, AI will sow the best house(7)", game.nextAIMove(), 7);
+        move = game.nextAIMove();
+        assertTrue("After player 1 sowing house 1, AI sows one of its own houses", move >= 6 && move < 12 && game.canSow(move));
+        assertEquals("After player 1 sowing house 1, AI sows a house with the best score", scoreAfter(game, move, 11), engine.getBestScore());
+    }
+
+    @Test
+    public void testNextAIMoveWithTimeBudget() {
+        Game game = new Game(true);
+        if(game.getPlayerTurn() == 1) game.nextTurn(); // Default player turn is random; This prevents random results for the tests
+        SearchEngine engine = new SearchEngine();
+        game.setEngine(engine);
+        game.sow(0);
+        game.nextTurn();
+
+        int move = game.nextAIMove(Duration.ofMillis(200));
+
+        assertTrue("With a time budget the AI sows one of its own houses", move >= 6 && move < 12 && game.canSow(move));
+        assertTrue("With a time budget the AI completes at least the first ply", engine.getCompletedDepth() >= 1);
+        assertTrue("With a time budget of 200ms the AI stops deepening well before its deepest search", engine.getCompletedDepth() < 40);
     }
 
     @Test
@@ -175,6 +254,88 @@ public class GameTest {
         assertTrue("After playing a set of moves that leads to player 2, hasWon() returns false for player 2", game.hasWon());
     }
 
+    @Test
+    public void testGetHouse() {
+        Game game = new Game(false);
+        if(game.getPlayerTurn() == 1) game.nextTurn(); // Default player turn is random; This prevents random results for the tests
+        game.sow(0);
+
+        assertEquals("A sown house is empty", game.getSeedCount(0), 0);
+        assertEquals("The houses after the sown house gain a seed", game.getSeedCount(11), 5);
+        assertEquals("A house view reports the seed count of the house", game.getHouse(11).getSeedCount(), 5);
+
+        game.getHouse(11).clear();
+        assertEquals("Changing a house view does not change the game", game.getSeedCount(11), 5);
+    }
+
+    @Test
+    public void testMakeMove() {
+        Game game = new Game(false);
+        if(game.getPlayerTurn() == 0) game.nextTurn(); // Default player turn is random; This prevents random results for the tests
+        Game reference = new Game(game);
+        int[] moves = {6,0,7,1,6,2,8,3,9,4,10,5,11,0,6,2,8};
+
+        for(int i = 0; i < moves.length; i++) {
+            reference.sow(moves[i]);
+            reference.capture();
+            reference.nextTurn();
+            game.makeMove(moves[i]);
+            assertEquals("makeMove gives the same game as sow, capture and nextTurn after move " + i, game.toString(), reference.toString());
+        }
+    }
+
+    @Test
+    public void testUnmakeMove() {
+        Game game = new Game(false);
+        if(game.getPlayerTurn() == 0) game.nextTurn(); // Default player turn is random; This prevents random results for the tests
+        int[] moves = {6,0,7,1,6,2,8,3,9,4,10,5,11,0,6,2,8};
+        String[] played = new String[moves.length];
+
+        for(int i = 0; i < moves.length; i++) {
+            played[i] = game.toString();
+            game.makeMove(moves[i]);
+        }
+        for(int i = moves.length - 1; i >= 0; i--) {
+            game.unmakeMove();
+            assertEquals("unmakeMove restores the game from before move " + i, game.toString(), played[i]);
+        }
+    }
+
+    @Test
+    public void testHash() {
+        Game game = new Game(false);
+        if(game.getPlayerTurn() == 0) game.nextTurn(); // Default player turn is random; This prevents random results for the tests
+        Game reference = new Game(game);
+        assertEquals("A copied game has the same hash", game.getHash(), reference.getHash());
+
+        long startingHash = game.getHash();
+        int[] moves = {6,0,7,1,6,2,8,3,9,4,10,5,11,0,6,2,8};
+        for(int i = 0; i < moves.length; i++) {
+            reference.sow(moves[i]);
+            reference.capture();
+            reference.nextTurn();
+            game.makeMove(moves[i]);
+            assertEquals("makeMove and sow, capture and nextTurn give the same hash after move " + i, game.getHash(), reference.getHash());
+        }
+        assertTrue("A different position has a different hash", game.getHash() != startingHash);
+
+        for(int i = 0; i < moves.length; i++) {
+            game.unmakeMove();
+        }
+        assertEquals("Unmaking every move restores the starting hash", game.getHash(), startingHash);
+    }
+
+    /**
+     * The score, for the player to move, of sowing a house and letting the opponent answer with a search of the given depth
+     */
+    private int scoreAfter(Game game, int house, int depth) {
+        Game after = new Game(game);
+        after.makeMove(house);
+        SearchEngine engine = new SearchEngine(depth, 1);
+        engine.bestMove(after);
+        return -engine.getBestScore();
+    }
+
     private String[] boardForGame(Game game) {
         return new String[]{game.toString().split("\n")[0], game.toString().split("\n")[1]};
     }
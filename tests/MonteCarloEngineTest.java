@@ -0,0 +1,83 @@
+package tests;
+
+import model.Game;
+import model.MonteCarloEngine;
+import model.StopToken;
+import org.junit.Test;
+
+import java.time.Duration;
+
+import static junit.framework.TestCase.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class MonteCarloEngineTest {
+    @Test
+    public void testBestMove() {
+        Game game = new Game(false);
+        MonteCarloEngine engine = new MonteCarloEngine(2000, 1, 42);
+        String board = game.toString();
+
+        int move = engine.bestMove(game);
+
+        assertTrue("The engine sows one of the current player's houses", game.canSow(move));
+        assertEquals("Searching does not change the game", game.toString(), board);
+        assertEquals("Without a time budget every iteration runs", engine.getIterationCount(), 2000);
+    }
+
+    @Test
+    public void testTakesCapture() {
+        Game game = new Game(false);
+        // Sowing house 0 captures the two seeds in house 11, which leaves the opponent no way to catch up
+        game.setPosition(new int[] {1, 0, 0, 0, 0, 1, 1, 0, 0, 0, 0, 1}, 22, 21, 0);
+        MonteCarloEngine engine = new MonteCarloEngine(2000, 1, 42);
+
+        assertEquals("The engine plays the winning capture", engine.bestMove(game), 0);
+    }
+
+    @Test
+    public void testTimeBudget() {
+        Game game = new Game(false);
+        MonteCarloEngine engine = new MonteCarloEngine(1, 1, 42);
+
+        int move = engine.bestMove(game, Duration.ofMillis(200));
+
+        assertTrue("With a time budget the engine still finds a move", game.canSow(move));
+        assertTrue("With a time budget the engine runs more than its iteration count", engine.getIterationCount() > 1);
+
+        // The clock is read every 64 iterations, so a spent budget stops the search at the first reading
+        move = engine.bestMove(game, Duration.ZERO);
+        assertTrue("With a spent budget the engine still finds a move", game.canSow(move));
+        assertTrue("With a spent budget the engine stops at its first check", engine.getIterationCount() < 64);
+    }
+
+    @Test
+    public void testStop() {
+        Game game = new Game(false);
+        MonteCarloEngine engine = new MonteCarloEngine(MonteCarloEngine.DEFAULT_ITERATIONS, 2, 42);
+        StopToken stopToken = new StopToken();
+        stopToken.stop();
+
+        int move = engine.bestMove(game, stopToken);
+
+        assertTrue("A stopped search still finds a move", game.canSow(move));
+        assertTrue("A stopped search stops every thread at its first check", engine.getIterationCount() < 2 * 64);
+    }
+
+    @Test
+    public void testParallelSearch() {
+        Game game = new Game(false);
+        MonteCarloEngine engine = new MonteCarloEngine(1000, 4, 42);
+        String board = game.toString();
+
+        int move = engine.bestMove(game);
+
+        assertTrue("Growing several trees at once finds a legal move", game.canSow(move));
+        assertEquals("Searching does not change the game", game.toString(), board);
+        assertEquals("Every thread runs its iterations", engine.getIterationCount(), 4000);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testNoThreads() {
+        new MonteCarloEngine(1000, 0);
+    }
+}
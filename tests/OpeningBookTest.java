@@ -0,0 +1,71 @@
+package tests;
+
+import model.Game;
+import model.OpeningBook;
+import model.SearchEngine;
+import org.junit.Test;
+import tools.OpeningBookBuilder;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import static junit.framework.TestCase.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class OpeningBookTest {
+    private static final PrintStream QUIET = new PrintStream(OutputStream.nullOutputStream());
+
+    @Test
+    public void testProbe() throws IOException {
+        Path file = Files.createTempFile("book", ".bin");
+        try {
+            new OpeningBookBuilder(2, 6, 2).build(file, QUIET);
+            OpeningBook book = OpeningBook.open(file);
+            Game game = new Game(false);
+            SearchEngine engine = new SearchEngine(6, 1);
+            engine.setOpeningBook(null);
+
+            assertEquals("A book of the first 2 plies holds both starting positions and their 12 replies", book.size(), 14);
+            engine.bestMove(game);
+            assertTrue("The book move for the starting position can be sown", game.canSow(book.probe(game)));
+            assertEquals("The book score for the starting position is the score found by searching", book.probeScore(game), engine.getBestScore());
+
+            game.makeMove(game.getPlayerTurn() * 6);
+            game.makeMove(game.getPlayerTurn() * 6);
+            assertEquals("Positions after the book's plies are not in the book", book.probe(game), -1);
+        } finally {
+            Files.delete(file);
+        }
+    }
+
+    @Test
+    public void testSearchWithBook() throws IOException {
+        Path file = Files.createTempFile("book", ".bin");
+        try {
+            new OpeningBookBuilder(1, 4, 1).build(file, QUIET);
+            SearchEngine engine = new SearchEngine(12, 1);
+            engine.setOpeningBook(OpeningBook.open(file));
+            Game game = new Game(false);
+
+            int move = engine.bestMove(game);
+            assertEquals("A move from the book visits no positions", engine.getNodeCount(), 0L);
+            assertEquals("The engine plays the book move", move, OpeningBook.open(file).probe(game));
+        } finally {
+            Files.delete(file);
+        }
+    }
+
+    @Test(expected = UncheckedIOException.class)
+    public void testMissingDefault() {
+        System.setProperty("oware.book", "no-such-book.bin");
+        try {
+            OpeningBook.getDefault();
+        } finally {
+            System.clearProperty("oware.book");
+        }
+    }
+}
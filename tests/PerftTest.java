@@ -0,0 +1,86 @@
+package tests;
+
+import model.Game;
+import org.junit.Test;
+import tools.Perft;
+
+import static junit.framework.TestCase.assertEquals;
+import static junit.framework.TestCase.assertNull;
+import static org.junit.Assert.assertNotNull;
+
+public class PerftTest {
+    private static Game startingPosition() {
+        Game game = new Game(false);
+        game.setPosition(new int[] {4, 4, 4, 4, 4, 4, 4, 4, 4, 4, 4, 4}, 0, 0, 0);
+        return game;
+    }
+
+    // Counts the leaves by playing every move on copies, as the user interface does
+    private static long countByCopying(Game game, int depth) {
+        if (depth == 0) return 1;
+        if (game.hasEnded() || !game.canSowAny()) return 0;
+        long nodes = 0;
+        for (int i = 0; i < 12; i++) {
+            if (!game.canSow(i)) continue;
+            Game child = new Game(game);
+            child.sow(i);
+            child.capture();
+            child.nextTurn();
+            nodes += countByCopying(child, depth - 1);
+        }
+        return nodes;
+    }
+
+    @Test
+    public void testCount() {
+        Game game = startingPosition();
+
+        assertEquals("The first player has six moves", new Perft(1).count(game, 1).getNodes(), 6);
+        assertEquals("Bulk counting agrees with playing every move", new Perft(1).count(game, 5).getNodes(), countByCopying(game, 5));
+        assertEquals("No capture is possible in the first three moves", new Perft(1).count(game, 3).getCaptures(), 0);
+    }
+
+    @Test
+    public void testKnownCounts() {
+        Game game = startingPosition();
+        // Counted with the original House-based Game, so they pin the rules rather than the current code
+        long[][] expected = {{4, 1014, 89}, {5, 5219, 401}, {6, 27332, 5264}, {7, 139157, 23308}};
+
+        for (long[] counts : expected) {
+            Perft.Result result = new Perft(2).count(game, (int) counts[0]);
+            assertEquals("Leaves at depth " + counts[0] + " from the starting position", result.getNodes(), counts[1]);
+            assertEquals("Captures at depth " + counts[0] + " from the starting position", result.getCaptures(), counts[2]);
+        }
+    }
+
+    @Test
+    public void testThreads() {
+        Game game = startingPosition();
+        Perft.Result serial = new Perft(1).count(game, 6);
+        Perft.Result parallel = new Perft(3).count(game, 6);
+
+        assertEquals("Threads count the same nodes", parallel.getNodes(), serial.getNodes());
+        assertEquals("Threads count the same captures", parallel.getCaptures(), serial.getCaptures());
+    }
+
+    @Test
+    public void testDiff() {
+        Game game = startingPosition();
+
+        assertNull("Making moves in place agrees with the reference", new Perft(2).diff(game, 5, Perft.MakeMoveBoard::new));
+
+        // A board that always reports player 0 to move
+        String difference = new Perft(2).diff(game, 2, position -> {
+            Perft.Board board = new Perft.MakeMoveBoard(position);
+            return new Perft.Board() {
+                public int legalMoves() { return board.legalMoves(); }
+                public void play(int houseID) { board.play(houseID); }
+                public void undo() { board.undo(); }
+                public int getSeedCount(int houseID) { return board.getSeedCount(houseID); }
+                public int getScore(int player) { return board.getScore(player); }
+                public int getPlayerTurn() { return 0; }
+            };
+        });
+        assertNotNull("A board that breaks the rules is caught", difference);
+    }
+}
@@ -0,0 +1,107 @@
+package tests;
+
+import model.Game;
+import model.PositionCache;
+import model.SearchEngine;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static junit.framework.TestCase.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class PositionCacheTest {
+    @Test
+    public void testStoreAndProbe() {
+        PositionCache cache = new PositionCache(100);
+        cache.store(42, 7, -12, 8);
+        long entry = cache.probe(42);
+
+        assertEquals("The stored move is found", PositionCache.move(entry), 7);
+        assertEquals("The stored score is found", PositionCache.score(entry), -12);
+        assertEquals("The stored depth is found", PositionCache.depth(entry), 8);
+        assertEquals("An unknown position is not found", cache.probe(43), 0);
+        assertEquals("One probe hit", cache.getHitCount(), 1);
+        assertEquals("One probe missed", cache.getMissCount(), 1);
+
+        cache.store(42, 3, 5, 4);
+        assertEquals("A shallower answer does not replace a deeper one", PositionCache.move(cache.probe(42)), 7);
+        cache.store(42, 3, 5, 10);
+        assertEquals("A deeper answer replaces a shallower one", PositionCache.move(cache.probe(42)), 3);
+    }
+
+    @Test
+    public void testClockEviction() {
+        PositionCache cache = new PositionCache(2);
+        cache.store(1, 1, 0, 1);
+        cache.store(2, 2, 0, 1);
+        cache.probe(1);
+        cache.store(3, 3, 0, 1);
+
+        assertTrue("A position read since it was stored gets a second chance", cache.probe(1) != 0);
+        assertEquals("The position not read since it was stored is evicted", cache.probe(2), 0);
+        assertTrue("The new position is stored", cache.probe(3) != 0);
+        assertEquals("The cache stays within its capacity", cache.size(), 2);
+        assertEquals("One entry was evicted", cache.getEvictionCount(), 1);
+    }
+
+    @Test
+    public void testClear() {
+        PositionCache cache = new PositionCache(100);
+        cache.store(42, 7, -12, 8);
+        cache.clear();
+
+        assertEquals("A cleared cache is empty", cache.size(), 0);
+        assertEquals("A cleared cache finds nothing", cache.probe(42), 0);
+        cache.store(42, 3, 5, 4);
+        assertEquals("A cleared cache takes new answers", PositionCache.move(cache.probe(42)), 3);
+    }
+
+    @Test
+    public void testConcurrentUse() throws InterruptedException, ExecutionException {
+        PositionCache cache = new PositionCache(1000);
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+        List<Future<?>> runs = new ArrayList<>();
+        for (int t = 0; t < 4; t++) {
+            SplittableRandom random = new SplittableRandom(t);
+            runs.add(executor.submit(() -> {
+                for (int i = 0; i < 100000; i++) {
+                    long key = random.nextLong(5000) * 0x9E3779B97F4A7C15L;
+                    long entry = cache.probe(key);
+                    if (entry != 0 && PositionCache.move(entry) != (int) (key & 0xF) % 12)
+                        throw new AssertionError("An entry was mixed up with another key's");
+                    cache.store(key, (int) (key & 0xF) % 12, 0, 1);
+                }
+            }));
+        }
+        // get() rethrows a thread's failed check, which would otherwise be lost
+        try {
+            for (Future<?> run : runs) run.get();
+        } finally {
+            executor.shutdown();
+        }
+
+        assertTrue("The cache stays within its capacity", cache.size() <= 1000);
+        assertTrue("Repeated positions are found", cache.getHitCount() > 0);
+    }
+
+    @Test
+    public void testSharedBetweenEngines() {
+        Game game = new Game(false);
+        PositionCache cache = new PositionCache(100);
+        SearchEngine first = new SearchEngine(8, 1), second = new SearchEngine(8, 1);
+        first.setPositionCache(cache);
+        second.setPositionCache(cache);
+
+        int move = first.bestMove(game);
+        assertEquals("The second engine gets the first engine's answer", second.bestMove(game), move);
+        assertEquals("The second engine does not search", second.getNodeCount(), 0);
+        assertEquals("The second engine's probe hit", cache.getHitCount(), 1);
+    }
+}
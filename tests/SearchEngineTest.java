@@ -0,0 +1,153 @@
+package tests;
+
+import model.Game;
+import model.SearchEngine;
+import model.StopToken;
+import org.junit.Test;
+
+import java.util.Random;
+
+import static junit.framework.TestCase.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class SearchEngineTest {
+    @Test
+    public void testBestMove() {
+        Game game = new Game(false);
+        if(game.getPlayerTurn() == 1) game.nextTurn(); // Default player turn is random; This prevents random results for the tests
+        SearchEngine engine = new SearchEngine(8, 1);
+        String board = game.toString();
+
+        int move = engine.bestMove(game);
+
+        assertTrue("The engine sows one of the current player's houses", game.canSow(move));
+        assertEquals("Searching does not change the game", game.toString(), board);
+        assertEquals("A search to depth 8 completes 8 plies", engine.getCompletedDepth(), 8);
+    }
+
+    @Test
+    public void testWinningCapture() {
+        Game game = new Game(false);
+        game.setPosition(new int[]{1,0,0,0,0,1, 0,5,0,0,0,1}, 23, 17, 0);
+        SearchEngine engine = new SearchEngine(8, 1);
+
+        assertEquals("Sowing house 0 captures the 2 seeds player 1 needs to reach 25", engine.bestMove(game), 0);
+        assertEquals("A win on the next ply scores as a win one ply away", engine.getBestScore(), 999);
+    }
+
+    @Test
+    public void testNoMove() {
+        Game game = new Game(false);
+        game.setPosition(new int[]{0,0,0,0,0,0, 4,4,4,4,4,4}, 12, 12, 0);
+
+        assertEquals("A player without seeds has no house to sow", new SearchEngine(8, 1).bestMove(game), -1);
+    }
+
+    @Test
+    public void testScoreIsBestReply() {
+        Random random = new Random(3);
+        for(int position = 0; position < 10; position++) {
+            Game game = new Game(false);
+            for(int ply = 0; ply < 10 && game.legalMoves() != 0; ply++) {
+                game.makeMove(randomMove(game, random));
+            }
+            SearchEngine engine = new SearchEngine(6, 1);
+            engine.bestMove(game);
+
+            int best = Integer.MIN_VALUE;
+            for(int house = 0; house < 12; house++) {
+                if(!game.canSow(house)) continue;
+                Game after = new Game(game);
+                after.makeMove(house);
+                SearchEngine replyEngine = new SearchEngine(5, 1);
+                replyEngine.bestMove(after);
+                best = Math.max(best, -replyEngine.getBestScore());
+            }
+            assertEquals("Alpha-beta pruning scores a position as its best move, searched one ply less deep", engine.getBestScore(), best);
+        }
+    }
+
+    @Test
+    public void testCutoffStatistics() {
+        Game game = new Game(false);
+        SearchEngine engine = new SearchEngine(10, 1);
+
+        engine.bestMove(game);
+
+        assertTrue("A search to depth 10 has beta cutoffs", engine.getCutoffCount() > 0);
+        assertTrue("First move cutoffs are a part of all cutoffs", engine.getFirstMoveCutoffCount() <= engine.getCutoffCount());
+    }
+
+    @Test
+    public void testNodeBudget() {
+        Game game = new Game(false);
+        SearchEngine engine = new SearchEngine(8, 1);
+
+        int move = engine.bestMove(game, 5000);
+
+        assertTrue("With a node budget the engine still finds a move", game.canSow(move));
+        assertTrue("With a node budget the engine stops shortly after the budget", engine.getNodeCount() < 5000 + 1024);
+    }
+
+    @Test
+    public void testParallelSearch() {
+        Game game = new Game(false);
+        if(game.getPlayerTurn() == 1) game.nextTurn(); // Default player turn is random; This prevents random results for the tests
+        game.makeMove(0);
+        SearchEngine engine = new SearchEngine(10, 1, 4);
+
+        int move = engine.bestMove(game);
+
+        assertEquals("A parallel engine uses the requested number of threads", engine.getThreads(), 4);
+        assertTrue("A parallel search sows one of the current player's houses", game.canSow(move));
+        assertEquals("A parallel search to depth 10 completes 10 plies", engine.getCompletedDepth(), 10);
+    }
+
+    @Test
+    public void testStop() throws InterruptedException {
+        Game game = new Game(false);
+        SearchEngine engine = new SearchEngine(30, 1);
+        StopToken stopToken = new StopToken();
+        Thread stopper = new Thread(() -> {
+            try {
+                Thread.sleep(200);
+            } catch (InterruptedException e) {
+                return;
+            }
+            stopToken.stop();
+        });
+        stopper.start();
+
+        int move = engine.bestMove(game, stopToken);
+        stopper.join();
+
+        assertTrue("A stopped search still sows one of the current player's houses", game.canSow(move));
+        assertTrue("A stopped search does not reach its depth limit", engine.getCompletedDepth() < 30);
+    }
+
+    @Test
+    public void testStoppedBeforeStart() {
+        Game game = new Game(false);
+        SearchEngine engine = new SearchEngine(6, 1);
+        StopToken stopToken = new StopToken();
+        stopToken.stop();
+
+        assertEquals("A search stopped before it starts completes no iteration", engine.bestMove(game, stopToken), -1);
+        assertTrue("The next search, with a token of its own, sows one of the current player's houses", game.canSow(engine.bestMove(game, new StopToken())));
+        assertEquals("The next search is not stopped", engine.getCompletedDepth(), 6);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testNoThreads() {
+        new SearchEngine(8, 1, 0);
+    }
+
+    private int randomMove(Game game, Random random) {
+        int moves = game.legalMoves();
+        int skip = random.nextInt(Integer.bitCount(moves));
+        for(int i = 0; i < skip; i++) {
+            moves &= moves - 1;
+        }
+        return game.getPlayerTurn() * 6 + Integer.numberOfTrailingZeros(moves);
+    }
+}
@@ -0,0 +1,33 @@
+package tests;
+
+import org.junit.Test;
+import tools.SelfPlay;
+
+import static junit.framework.TestCase.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class SelfPlayTest {
+    @Test
+    public void testPlay() {
+        SelfPlay.Result result = new SelfPlay("random", "search:2", 2, 42, 2).play(50);
+
+        assertEquals("Every game is played", result.getGames(), 50);
+        assertEquals("Every game is won, lost or drawn", result.getWinsA() + result.getWinsB() + result.getDraws(), 50);
+        assertTrue("Games last at least one move", result.getAveragePlies() >= 1);
+        assertTrue("A search beats random moves more often than not", result.getWinsB() > result.getWinsA());
+    }
+
+    @Test
+    public void testSeed() {
+        SelfPlay.Result first = new SelfPlay("random", "random", 1, 7, 0).play(200);
+        SelfPlay.Result second = new SelfPlay("random", "random", 3, 7, 0).play(200);
+
+        assertEquals("Random games depend only on the seed", first.getWinsA(), second.getWinsA());
+        assertEquals("Random games depend only on the seed", first.getAveragePlies(), second.getAveragePlies());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testUnknownPlayer() {
+        new SelfPlay("random", "minimax", 1, 0, 0);
+    }
+}
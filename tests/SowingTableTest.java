@@ -0,0 +1,33 @@
+package tests;
+
+import model.SowingTable;
+import org.junit.Test;
+
+import static junit.framework.TestCase.assertEquals;
+
+public class SowingTableTest {
+    @Test
+    public void testReceiver() {
+        assertEquals("The first seed from house 0 goes to house 11", SowingTable.receiver(0, 0), 11);
+        assertEquals("The eleventh seed from house 0 goes to house 1", SowingTable.receiver(0, 10), 1);
+        assertEquals("The twelfth seed from house 0 skips house 0 and goes to house 11", SowingTable.receiver(0, 11), 11);
+    }
+
+    @Test
+    public void testIncrement() {
+        assertEquals("The origin house gets no seeds back", SowingTable.increment(0, 12, 0), 0);
+        assertEquals("Twelve seeds from house 0 give house 11 two seeds", SowingTable.increment(0, 12, 11), 2);
+        assertEquals("Twelve seeds from house 0 give house 10 one seed", SowingTable.increment(0, 12, 10), 1);
+
+        int total = 0;
+        for (int i = 0; i < 12; i++) total += SowingTable.increment(7, SowingTable.MAX_SEEDS, i);
+        assertEquals("Every seed is sown", total, SowingTable.MAX_SEEDS);
+    }
+
+    @Test
+    public void testLanding() {
+        assertEquals("Three seeds from house 6 land in house 3", SowingTable.landing(6, 3), 3);
+        assertEquals("Twelve seeds from house 0 land in house 11", SowingTable.landing(0, 12), 11);
+        assertEquals("Sowing no seeds lands nowhere", SowingTable.landing(5, 0), -1);
+    }
+}
@@ -0,0 +1,85 @@
+package tests;
+
+import model.Game;
+import model.SearchEngine;
+import model.Tablebase;
+import org.junit.Test;
+import tools.TablebaseGenerator;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import static junit.framework.TestCase.assertEquals;
+import static junit.framework.TestCase.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class TablebaseTest {
+    private static final PrintStream QUIET = new PrintStream(OutputStream.nullOutputStream());
+
+    @Test
+    public void testRank() {
+        Game game = new Game(false);
+        int[] houses = new int[12];
+
+        for(int rank = 0; rank < Tablebase.positionCount(4); rank++) {
+            Tablebase.unrank(rank, 4, houses);
+            game.setPosition(houses, 22, 22, 0);
+            assertEquals("Ranking an unranked board gives back its rank", Tablebase.rank(game), (long) rank);
+        }
+        assertEquals("There are 1365 ways to place 4 seeds in 12 houses", Tablebase.positionCount(4), 1365L);
+    }
+
+    @Test
+    public void testProbe() throws IOException {
+        Path file = Files.createTempFile("tablebase", ".bin");
+        try {
+            new TablebaseGenerator(4, 2).generate(file, QUIET);
+            Tablebase tablebase = Tablebase.open(file);
+            Game game = new Game(false);
+
+            game.setPosition(new int[]{0,0,0,0,0,1, 0,0,0,0,0,0}, 23, 24, 0);
+            assertEquals("A player who cannot feed their opponent keeps their own seeds", tablebase.probe(game), 1);
+
+            game.setPosition(new int[]{1,0,0,0,0,0, 0,0,0,0,1,1}, 22, 23, 0);
+            assertEquals("Capturing two seeds and leaving one for the opponent nets one seed", tablebase.probe(game), 1);
+
+            game.setPosition(new int[]{0,0,0,0,1,0, 0,0,0,0,0,0}, 23, 24, 1);
+            assertEquals("Boards with player 2 to move are looked up from player 2's side", tablebase.probe(game), -1);
+
+            assertTrue("The tablebase holds positions with 4 seeds", tablebase.contains(game));
+            assertFalse("The tablebase does not hold the starting position", tablebase.contains(new Game(false)));
+        } finally {
+            Files.delete(file);
+        }
+    }
+
+    @Test
+    public void testSearchWithTablebase() throws IOException {
+        Path file = Files.createTempFile("tablebase", ".bin");
+        try {
+            new TablebaseGenerator(4, 1).generate(file, QUIET);
+            SearchEngine engine = new SearchEngine(6, 1);
+            engine.setTablebase(Tablebase.open(file));
+            Game game = new Game(false);
+            game.setPosition(new int[]{1,0,0,0,0,1, 0,0,0,0,1,1}, 21, 23, 0);
+
+            assertEquals("With a tablebase the engine sows the house that captures", engine.bestMove(game), 0);
+        } finally {
+            Files.delete(file);
+        }
+    }
+
+    @Test(expected = UncheckedIOException.class)
+    public void testMissingDefault() {
+        System.setProperty("oware.tablebase", "no-such-tablebase.bin");
+        try {
+            Tablebase.getDefault();
+        } finally {
+            System.clearProperty("oware.tablebase");
+        }
+    }
+}
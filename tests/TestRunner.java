@@ -7,7 +7,7 @@ import org.junit.runner.notification.Failure;
 
 public class TestRunner {
    public static void main(String[] args) {
-      Result result = JUnitCore.runClasses(GameTest.class, HouseTest.class);
+      Result result = JUnitCore.runClasses(GameTest.class, HouseTest.class, TranspositionTableTest.class, SearchEngineTest.class, TablebaseTest.class, OpeningBookTest.class, MonteCarloEngineTest.class, SelfPlayTest.class, PerftTest.class, SowingTableTest.class, GameStateTest.class, GameServerTest.class, PositionCacheTest.class);
 		
       for (Failure failure : result.getFailures()) {
          System.out.println(failure.toString());
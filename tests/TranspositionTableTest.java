@@ -0,0 +1,45 @@
+package tests;
+
+import model.TranspositionTable;
+import org.junit.Test;
+
+import static junit.framework.TestCase.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class TranspositionTableTest {
+    @Test
+    public void testConstructor() {
+        TranspositionTable table = new TranspositionTable(1);
+
+        assertEquals("A 1 MB table holds 65536 entries of 16 bytes", table.capacity(), 65536);
+    }
+
+    @Test
+    public void testProbe() {
+        TranspositionTable table = new TranspositionTable(1);
+
+        assertEquals("Probing an empty table misses", table.probe(12345L), 0L);
+        table.store(12345L, 4, 1, 3, -7);
+        assertTrue("Probing a stored position hits", table.probe(12345L) != 0);
+        assertEquals("Probing a position that was not stored misses", table.probe(54321L), 0L);
+    }
+
+    @Test
+    public void testReplacement() {
+        TranspositionTable table = new TranspositionTable(1);
+        long deepKey = 1L << 40, shallowKey = 2L << 40, otherKey = 3L << 40; // all map to the same bucket
+
+        table.store(deepKey, 10, 1, 0, 0);
+        table.store(shallowKey, 2, 1, 0, 0);
+        assertTrue("A shallower result does not replace a deeper one", table.probe(deepKey) != 0);
+        assertTrue("A shallower result is kept in the second slot", table.probe(shallowKey) != 0);
+
+        table.store(otherKey, 1, 1, 0, 0);
+        assertTrue("The deeper result survives further stores", table.probe(deepKey) != 0);
+        assertEquals("The second slot is always replaced", table.probe(shallowKey), 0L);
+
+        table.newSearch();
+        table.store(shallowKey, 2, 1, 0, 0);
+        assertEquals("Results from an earlier search are replaced first", table.probe(deepKey), 0L);
+    }
+}
@@ -0,0 +1,157 @@
+package tools;
+
+import model.Game;
+import model.OpeningBook;
+import model.SearchEngine;
+
+import java.io.IOException;
+import java.io.PrintStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * Builds an opening book by searching every position reachable in the first plies of a game,
+ * with either player starting, and writing the best move for each to a sorted file.
+ *
+ * Usage: java tools.OpeningBookBuilder file plies searchDepth [threads]
+ */
+public class OpeningBookBuilder
+{
+	private static final int NUMBER_OF_HOUSES = 12, STARTING_SEEDS_PER_HOUSE = 4;
+
+	private final int plies, searchDepth, threads;
+
+	/**
+	 * Construct a builder
+	 * @param plies the number of plies from the start whose positions go in the book
+	 * @param searchDepth the depth to search each position to
+	 * @param threads the number of positions to search at once
+	 */
+	public OpeningBookBuilder(int plies, int searchDepth, int threads)
+	{
+		if (plies < 1 || searchDepth < 1 || threads < 1)
+			throw new IllegalArgumentException("Plies, search depth and threads must be at least 1");
+		this.plies = plies;
+		this.searchDepth = searchDepth;
+		this.threads = threads;
+	}
+
+	/**
+	 * Searches the opening positions and writes the book to the specified file, replacing it,
+	 * reporting the number of positions written on standard output.
+	 *
+	 * @throws IOException if the file cannot be written.
+	 */
+	public void build(Path output) throws IOException
+	{
+		build(output, System.out);
+	}
+
+	/**
+	 * Searches the opening positions and writes the book to the specified file, replacing it.
+	 *
+	 * @param progress where to report the number of positions written
+	 * @throws IOException if the file cannot be written.
+	 */
+	public void build(Path output, PrintStream progress) throws IOException
+	{
+		Map<Long, Game> positions = new TreeMap<Long, Game>();
+		int[] startingSeeds = new int[NUMBER_OF_HOUSES];
+		Arrays.fill(startingSeeds, STARTING_SEEDS_PER_HOUSE);
+		for (int player = 0; player < 2; player++)
+		{
+			Game game = new Game(false);
+			game.setPosition(startingSeeds, 0, 0, player);
+			collect(game, plies, positions);
+		}
+
+		ExecutorService executor = Executors.newFixedThreadPool(threads);
+		ThreadLocal<SearchEngine> engines = ThreadLocal.withInitial(() -> new SearchEngine(searchDepth));
+		// Each search gives back its move in the low 16 bits and its score in the high 16 bits
+		List<Callable<Integer>> searches = new ArrayList<Callable<Integer>>(positions.size());
+		for (Game game : positions.values())
+		{
+			searches.add(() -> {
+				SearchEngine engine = engines.get();
+				int move = engine.bestMove(game);
+				return (engine.getBestScore() << 16) | (move & 0xFFFF);
+			});
+		}
+
+		ByteBuffer buffer = ByteBuffer.allocate(OpeningBook.HEADER_SIZE + positions.size() * OpeningBook.RECORD_SIZE);
+		buffer.putInt(OpeningBook.MAGIC).putInt(positions.size());
+		try
+		{
+			List<Future<Integer>> results = executor.invokeAll(searches);
+			int i = 0;
+			// TreeMap keeps the hashes in signed order, which is the order the book searches in
+			for (Long key : positions.keySet())
+			{
+				int result = results.get(i++).get();
+				buffer.putLong(key).putShort((short) result).putShort((short) (result >> 16));
+			}
+		}
+		catch (InterruptedException e)
+		{
+			Thread.currentThread().interrupt();
+			throw new IOException("Interrupted while building the opening book", e);
+		}
+		catch (ExecutionException e)
+		{
+			throw new IOException("Building the opening book failed", e.getCause());
+		}
+		finally
+		{
+			executor.shutdown();
+		}
+
+		buffer.flip();
+		try (FileChannel channel = FileChannel.open(output, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+			StandardOpenOption.TRUNCATE_EXISTING))
+		{
+			while (buffer.hasRemaining())
+				channel.write(buffer);
+		}
+		progress.println("Wrote " + positions.size() + " positions to " + output);
+	}
+
+	private static void collect(Game game, int plies, Map<Long, Game> positions)
+	{
+		if (plies == 0 || game.hasEnded() || !game.canSowAny())
+			return;
+		if (!positions.containsKey(game.getHash()))
+			positions.put(game.getHash(), new Game(game));
+		for (int i = 0; i < NUMBER_OF_HOUSES; i++)
+		{
+			if (!game.canSow(i))
+				continue;
+			game.makeMove(i);
+			collect(game, plies - 1, positions);
+			game.unmakeMove();
+		}
+	}
+
+	public static void main(String[] args) throws IOException
+	{
+		if (args.length < 3)
+		{
+			System.out.println("Usage: java tools.OpeningBookBuilder file plies searchDepth [threads]");
+			return;
+		}
+		int threads = args.length > 3 ? Integer.parseInt(args[3]) : Runtime.getRuntime().availableProcessors();
+		new OpeningBookBuilder(Integer.parseInt(args[1]), Integer.parseInt(args[2]), threads).build(Paths.get(args[0]));
+	}
+}
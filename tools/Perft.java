@@ -0,0 +1,375 @@
+package tools;
+
+import model.Game;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.function.Function;
+
+/**
+ * Counts the positions reachable in exactly a given number of moves, and how many of the last moves
+ * capture, as a check on the rules and a measure of how fast moves are generated and played.
+ * A position where the game has ended or the player to move cannot sow has no moves, so it only
+ * counts when it is reached on the last move.
+ *
+ * The last move is bulk counted: its positions are counted from the legal moves without playing them,
+ * and only moves that land on two or three seeds are played to see whether they really capture.
+ * The subtrees below the first two moves are shared between threads.
+ *
+ * It can also compare another {@link Board} against the rules in {@link Game}, playing every line to
+ * the given depth on both, and report the first position where they disagree.
+ *
+ * Usage: java tools.Perft depth [threads] [diff]
+ */
+public class Perft
+{
+	private static final int NUMBER_OF_HOUSES = 12, STARTING_SEEDS_PER_HOUSE = 4;
+
+	private final int threads;
+
+	/**
+	 * A board to compare against the rules in Game.
+	 */
+	public interface Board
+	{
+		/**
+		 * @return a mask with bit i set when house i can be sown.
+		 */
+		int legalMoves();
+
+		void play(int houseID);
+
+		/**
+		 * Takes back the last move played.
+		 */
+		void undo();
+
+		int getSeedCount(int houseID);
+
+		int getScore(int player);
+
+		int getPlayerTurn();
+	}
+
+	/**
+	 * Construct a counter
+	 * @param threads the number of subtrees to count at once
+	 */
+	public Perft(int threads)
+	{
+		if (threads < 1)
+			throw new IllegalArgumentException("Perft needs at least one thread");
+		this.threads = threads;
+	}
+
+	/**
+	 * Counts the positions and captures reachable from the specified position in exactly the specified number of moves.
+	 */
+	public Result count(Game position, int depth)
+	{
+		if (depth < 0)
+			throw new IllegalArgumentException("The depth cannot be negative");
+		long start = System.nanoTime();
+		Result result = new Result();
+		if (depth <= 2)
+			result.add(count(new Game(position), depth, new Result()));
+		else
+		{
+			// Every line of two moves becomes a task, which gives up to 36 subtrees to share out
+			List<Callable<Result>> tasks = new ArrayList<Callable<Result>>();
+			Game game = new Game(position);
+			if (isOver(game))
+				return result;
+			for (int first = 0; first < NUMBER_OF_HOUSES; first++)
+			{
+				if (!game.canSow(first))
+					continue;
+				game.makeMove(first);
+				for (int second = 0; second < NUMBER_OF_HOUSES && !isOver(game); second++)
+				{
+					if (!game.canSow(second))
+						continue;
+					Game child = new Game(game);
+					child.makeMove(second);
+					tasks.add(() -> count(child, depth - 2, new Result()));
+				}
+				game.unmakeMove();
+			}
+			for (Result subtree : invokeAll(tasks))
+				result.add(subtree);
+		}
+		result.nanos = System.nanoTime() - start;
+		return result;
+	}
+
+	private static Result count(Game game, int depth, Result result)
+	{
+		if (depth == 0)
+		{
+			result.nodes++;
+			return result;
+		}
+		if (isOver(game))
+			return result;
+		if (depth == 1)
+		{
+			int mover = game.getPlayerTurn(), before = game.getScore(mover), legalMoves = game.legalMoves();
+			result.nodes += Integer.bitCount(legalMoves);
+			for (; legalMoves != 0; legalMoves &= legalMoves - 1)
+			{
+				int i = mover * (NUMBER_OF_HOUSES / 2) + Integer.numberOfTrailingZeros(legalMoves);
+				if (game.previewCapture(i) == 0)
+					continue;
+				// Only a move landing on two or three seeds can capture, but the grand slam rule can still forbid it
+				game.makeMove(i);
+				if (game.getScore(mover) > before)
+					result.captures++;
+				game.unmakeMove();
+			}
+			return result;
+		}
+		int startingHouse = game.getPlayerTurn() * (NUMBER_OF_HOUSES / 2);
+		for (int legalMoves = game.legalMoves(); legalMoves != 0; legalMoves &= legalMoves - 1)
+		{
+			game.makeMove(startingHouse + Integer.numberOfTrailingZeros(legalMoves));
+			count(game, depth - 1, result);
+			game.unmakeMove();
+		}
+		return result;
+	}
+
+	/**
+	 * Plays every line of the specified number of moves on a board made by the factory and on the rules
+	 * in Game, sowing, capturing and passing the turn on copies of the game, and compares the two after
+	 * every move. The root moves are shared between threads.
+	 *
+	 * @return a description of the first disagreement found, or null if they agree everywhere.
+	 */
+	public String diff(Game position, int depth, Function<Game, Board> factory)
+	{
+		List<Callable<String>> tasks = new ArrayList<Callable<String>>();
+		Game root = new Game(position);
+		String rootDifference = compare(root, factory.apply(root), new ArrayList<Integer>());
+		if (rootDifference != null || depth == 0 || isOver(root))
+			return rootDifference;
+		for (int i = 0; i < NUMBER_OF_HOUSES; i++)
+		{
+			if (!root.canSow(i))
+				continue;
+			int move = i;
+			tasks.add(() -> {
+				Board board = factory.apply(root);
+				List<Integer> line = new ArrayList<Integer>();
+				line.add(move);
+				return diff(play(root, move), board, move, depth - 1, line);
+			});
+		}
+		for (String difference : invokeAll(tasks))
+		{
+			if (difference != null)
+				return difference;
+		}
+		return null;
+	}
+
+	private static String diff(Game reference, Board board, int move, int depth, List<Integer> line)
+	{
+		board.play(move);
+		String difference = compare(reference, board, line);
+		if (difference == null && depth > 0 && !isOver(reference))
+		{
+			for (int i = 0; i < NUMBER_OF_HOUSES && difference == null; i++)
+			{
+				if (!reference.canSow(i))
+					continue;
+				line.add(i);
+				difference = diff(play(reference, i), board, i, depth - 1, line);
+				line.remove(line.size() - 1);
+			}
+		}
+		board.undo();
+		return difference;
+	}
+
+	// The reference rules, as the user interface plays them
+	private static Game play(Game game, int houseID)
+	{
+		Game child = new Game(game);
+		child.sow(houseID);
+		child.captureHouses();
+		child.nextTurn();
+		return child;
+	}
+
+	private static String compare(Game reference, Board board, List<Integer> line)
+	{
+		int legalMoves = 0;
+		for (int i = 0; i < NUMBER_OF_HOUSES; i++)
+		{
+			if (reference.canSow(i))
+				legalMoves |= 1 << i;
+			if (reference.getSeedCount(i) != board.getSeedCount(i))
+				return describe(line, "house " + i + " holds " + board.getSeedCount(i) + " seeds instead of " + reference.getSeedCount(i));
+		}
+		for (int player = 0; player < 2; player++)
+		{
+			if (reference.getScore(player) != board.getScore(player))
+				return describe(line, "player " + player + " has " + board.getScore(player) + " instead of " + reference.getScore(player));
+		}
+		if (reference.getPlayerTurn() != board.getPlayerTurn())
+			return describe(line, "player " + board.getPlayerTurn() + " is to move instead of player " + reference.getPlayerTurn());
+		if (legalMoves != board.legalMoves())
+			return describe(line, "the legal moves are " + Integer.toBinaryString(board.legalMoves())
+				+ " instead of " + Integer.toBinaryString(legalMoves));
+		return null;
+	}
+
+	private static String describe(List<Integer> line, String difference)
+	{
+		return "After the moves " + line + ", " + difference;
+	}
+
+	private static boolean isOver(Game game)
+	{
+		return game.hasEnded() || !game.canSowAny();
+	}
+
+	private <T> List<T> invokeAll(List<Callable<T>> tasks)
+	{
+		ExecutorService executor = Executors.newFixedThreadPool(threads);
+		try
+		{
+			List<T> results = new ArrayList<T>(tasks.size());
+			for (Future<T> future : executor.invokeAll(tasks))
+				results.add(future.get());
+			return results;
+		}
+		catch (InterruptedException e)
+		{
+			Thread.currentThread().interrupt();
+			throw new IllegalStateException("Interrupted while counting", e);
+		}
+		catch (ExecutionException e)
+		{
+			throw new IllegalStateException("Counting failed", e.getCause());
+		}
+		finally
+		{
+			executor.shutdown();
+		}
+	}
+
+	/**
+	 * A board that plays moves in place with Game.makeMove() and Game.unmakeMove().
+	 */
+	public static final class MakeMoveBoard implements Board
+	{
+		private final Game game;
+
+		public MakeMoveBoard(Game position)
+		{
+			game = new Game(position);
+		}
+
+		@Override
+		public int legalMoves()
+		{
+			return game.legalMoves() << game.getPlayerTurn() * (NUMBER_OF_HOUSES / 2);
+		}
+
+		@Override
+		public void play(int houseID)
+		{
+			game.makeMove(houseID);
+		}
+
+		@Override
+		public void undo()
+		{
+			game.unmakeMove();
+		}
+
+		@Override
+		public int getSeedCount(int houseID)
+		{
+			return game.getSeedCount(houseID);
+		}
+
+		@Override
+		public int getScore(int player)
+		{
+			return game.getScore(player);
+		}
+
+		@Override
+		public int getPlayerTurn()
+		{
+			return game.getPlayerTurn();
+		}
+	}
+
+	/**
+	 * The number of positions and captures found by a count.
+	 */
+	public static final class Result
+	{
+		private long nodes, captures, nanos;
+
+		private void add(Result result)
+		{
+			nodes += result.nodes;
+			captures += result.captures;
+		}
+
+		public long getNodes()
+		{
+			return nodes;
+		}
+
+		public long getCaptures()
+		{
+			return captures;
+		}
+
+		public double getNodesPerSecond()
+		{
+			return nanos == 0 ? 0 : nodes * 1e9 / nanos;
+		}
+
+		@Override
+		public String toString()
+		{
+			return String.format("%d nodes, %d captures in %.3f s (%.0f nodes/s)", nodes, captures, nanos / 1e9, getNodesPerSecond());
+		}
+	}
+
+	public static void main(String[] args)
+	{
+		if (args.length < 1)
+		{
+			System.out.println("Usage: java tools.Perft depth [threads] [diff]");
+			return;
+		}
+		int depth = Integer.parseInt(args[0]);
+		int threads = args.length > 1 ? Integer.parseInt(args[1]) : Runtime.getRuntime().availableProcessors();
+		Perft perft = new Perft(threads);
+		int[] startingSeeds = new int[NUMBER_OF_HOUSES];
+		Arrays.fill(startingSeeds, STARTING_SEEDS_PER_HOUSE);
+		Game game = new Game(false);
+		game.setPosition(startingSeeds, 0, 0, 0);
+
+		for (int d = 1; d <= depth; d++)
+			System.out.println("Depth " + d + ": " + perft.count(game, d));
+		if (args.length > 2 && args[2].equals("diff"))
+		{
+			String difference = perft.diff(game, depth, MakeMoveBoard::new);
+			System.out.println(difference == null ? "Game.makeMove() agrees with the reference to depth " + depth : difference);
+		}
+	}
+}
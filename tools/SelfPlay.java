@@ -0,0 +1,278 @@
+package tools;
+
+import model.Engine;
+import model.Game;
+import model.MonteCarloEngine;
+import model.SearchEngine;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * Plays games between two players without the user interface, spread over a pool of threads, and
+ * reports how fast they were played and how they ended.
+ *
+ * A player is "random", "search:depth" or "mcts:iterations". The two players swap sides every game,
+ * and the first moves of each game can be played at random so that two engines do not play the same
+ * game over and over. Every game draws its random numbers from its own generator seeded from the
+ * game's number, so games between random players come out the same whatever the number of threads.
+ * Engines keep what they learn from one search to the next, so games involving them can vary.
+ *
+ * A game ends as it does in the user interface: when a player has won, when the game is drawn, or
+ * when the player to move cannot sow, in which case each player takes the seeds on their own side.
+ * Games still going after {@link #MAX_PLIES} moves are settled the same way.
+ *
+ * Usage: java tools.SelfPlay games playerA playerB [threads] [seed] [randomPlies]
+ */
+public class SelfPlay
+{
+	/**
+	 * The number of moves after which a game is settled as though no player could sow.
+	 */
+	public static final int MAX_PLIES = 1000;
+
+	private static final int NUMBER_OF_HOUSES = 12, STARTING_SEEDS_PER_HOUSE = 4;
+	private static final long GAME_SEED_STEP = 0x9E3779B97F4A7C15L;
+
+	private final String playerA, playerB;
+	private final int threads, randomPlies;
+	private final long seed;
+
+	/**
+	 * Construct a simulator
+	 * @param playerA the first player, playing player 0 in even numbered games
+	 * @param playerB the second player, playing player 0 in odd numbered games
+	 * @param threads the number of games to play at once
+	 * @param seed the seed every game's random numbers are derived from
+	 * @param randomPlies the number of moves at the start of each game that are played at random
+	 */
+	public SelfPlay(String playerA, String playerB, int threads, long seed, int randomPlies)
+	{
+		if (threads < 1)
+			throw new IllegalArgumentException("The simulator needs at least one thread");
+		if (randomPlies < 0)
+			throw new IllegalArgumentException("The number of random moves cannot be negative");
+		// Fail before any game starts if a player is not understood
+		createEngine(playerA, 0);
+		createEngine(playerB, 0);
+		this.playerA = playerA;
+		this.playerB = playerB;
+		this.threads = threads;
+		this.seed = seed;
+		this.randomPlies = randomPlies;
+	}
+
+	/**
+	 * Plays the specified number of games.
+	 *
+	 * @return how the games ended.
+	 */
+	public Result play(long games)
+	{
+		ExecutorService executor = Executors.newFixedThreadPool(threads);
+		List<Callable<Result>> workers = new ArrayList<Callable<Result>>(threads);
+		for (int t = 0; t < threads; t++)
+		{
+			int first = t;
+			workers.add(() -> playGames(first, games));
+		}
+
+		long start = System.nanoTime();
+		Result total = new Result();
+		try
+		{
+			for (Future<Result> worker : executor.invokeAll(workers))
+				total.add(worker.get());
+		}
+		catch (InterruptedException e)
+		{
+			Thread.currentThread().interrupt();
+		}
+		catch (ExecutionException e)
+		{
+			throw new IllegalStateException("Self play failed", e.getCause());
+		}
+		finally
+		{
+			executor.shutdown();
+		}
+		total.nanos = System.nanoTime() - start;
+		return total;
+	}
+
+	// Plays every game whose number is first, first + threads, first + 2 * threads, ...
+	private Result playGames(int first, long games)
+	{
+		Engine engineA = createEngine(playerA, seed + first), engineB = createEngine(playerB, seed + first);
+		Result result = new Result();
+		Game game = new Game(false);
+		int[] startingSeeds = new int[NUMBER_OF_HOUSES];
+		Arrays.fill(startingSeeds, STARTING_SEEDS_PER_HOUSE);
+
+		for (long number = first; number < games && !Thread.currentThread().isInterrupted(); number += threads)
+		{
+			SplittableRandom random = new SplittableRandom(seed + number * GAME_SEED_STEP);
+			// Player A plays player 0 in even numbered games
+			int sideA = (int) (number & 1);
+			game.setPosition(startingSeeds, 0, 0, random.nextInt(2));
+
+			int plies = 0;
+			while (plies < MAX_PLIES && !game.hasEnded() && game.canSowAny())
+			{
+				Engine engine = game.getPlayerTurn() == sideA ? engineA : engineB;
+				int move = plies < randomPlies || engine == null ? randomMove(game, random) : engine.bestMove(game);
+				game.makeMove(move);
+				plies++;
+			}
+			result.record(outcome(game), sideA, plies);
+		}
+		return result;
+	}
+
+	private static int randomMove(Game game, SplittableRandom random)
+	{
+		int legalMoves = game.legalMoves();
+		for (int skip = random.nextInt(Integer.bitCount(legalMoves)); skip > 0; skip--)
+			legalMoves &= legalMoves - 1;
+		return game.getPlayerTurn() * (NUMBER_OF_HOUSES / 2) + Integer.numberOfTrailingZeros(legalMoves);
+	}
+
+	// The winning player, or -1 for a draw, with each player taking the seeds on their own side
+	private static int outcome(Game game)
+	{
+		if (!game.hasEnded())
+		{
+			game.captureAllHouses();
+			game.nextTurn();
+			game.captureAllHouses();
+			game.nextTurn();
+		}
+		if (game.getScore(0) > game.getScore(1))
+			return 0;
+		if (game.getScore(1) > game.getScore(0))
+			return 1;
+		return -1;
+	}
+
+	/**
+	 * @return a new engine for the specified player, or null for a player that moves at random.
+	 */
+	static Engine createEngine(String player, long seed)
+	{
+		if (player.equals("random"))
+			return null;
+		String[] parts = player.split(":", 2);
+		if (parts.length == 2)
+		{
+			try
+			{
+				int strength = Integer.parseInt(parts[1]);
+				if (parts[0].equals("search"))
+					return new SearchEngine(strength, 1, 1);
+				if (parts[0].equals("mcts"))
+					return new MonteCarloEngine(strength, 1, seed);
+			}
+			catch (NumberFormatException e)
+			{
+				// Reported below
+			}
+		}
+		throw new IllegalArgumentException("Unknown player " + player + ", expected random, search:depth or mcts:iterations");
+	}
+
+	/**
+	 * How a number of games ended, counted from the point of view of the two players handed to the simulator.
+	 */
+	public static final class Result
+	{
+		private long games, plies, winsA, winsB, draws, nanos;
+
+		private void record(int winner, int sideA, int plies)
+		{
+			games++;
+			this.plies += plies;
+			if (winner == -1)
+				draws++;
+			else if (winner == sideA)
+				winsA++;
+			else
+				winsB++;
+		}
+
+		private void add(Result result)
+		{
+			games += result.games;
+			plies += result.plies;
+			winsA += result.winsA;
+			winsB += result.winsB;
+			draws += result.draws;
+		}
+
+		public long getGames()
+		{
+			return games;
+		}
+
+		public long getWinsA()
+		{
+			return winsA;
+		}
+
+		public long getWinsB()
+		{
+			return winsB;
+		}
+
+		public long getDraws()
+		{
+			return draws;
+		}
+
+		public double getAveragePlies()
+		{
+			return games == 0 ? 0 : (double) plies / games;
+		}
+
+		public double getGamesPerSecond()
+		{
+			return nanos == 0 ? 0 : games * 1e9 / nanos;
+		}
+
+		@Override
+		public String toString()
+		{
+			return String.format("%d games in %.2f s (%.1f games/s), %.1f plies on average%n"
+					+ "A won %.1f%%, B won %.1f%%, drawn %.1f%%",
+				games, nanos / 1e9, getGamesPerSecond(), getAveragePlies(),
+				percent(winsA), percent(winsB), percent(draws));
+		}
+
+		private double percent(long count)
+		{
+			return games == 0 ? 0 : 100.0 * count / games;
+		}
+	}
+
+	public static void main(String[] args)
+	{
+		if (args.length < 3)
+		{
+			System.out.println("Usage: java tools.SelfPlay games playerA playerB [threads] [seed] [randomPlies]");
+			System.out.println("A player is random, search:depth or mcts:iterations");
+			return;
+		}
+		int threads = args.length > 3 ? Integer.parseInt(args[3]) : Runtime.getRuntime().availableProcessors();
+		long seed = args.length > 4 ? Long.parseLong(args[4]) : System.nanoTime();
+		int randomPlies = args.length > 5 ? Integer.parseInt(args[5]) : 2;
+		SelfPlay selfPlay = new SelfPlay(args[1], args[2], threads, seed, randomPlies);
+		System.out.println("A is " + args[1] + ", B is " + args[2] + ", seed " + seed);
+		System.out.println(selfPlay.play(Long.parseLong(args[0])));
+	}
+}
@@ -0,0 +1,246 @@
+package tools;
+
+import model.Game;
+import model.Tablebase;
+
+import java.io.IOException;
+import java.io.PrintStream;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * Builds an endgame tablebase by retrograde analysis, solving every position with up to a given
+ * number of seeds on the board.
+ *
+ * Levels are solved from the fewest seeds up. A move that captures leads to a smaller level that is
+ * already solved, and is read back from the output file through a memory mapping, so only the level
+ * being solved is held on the heap. A move that does not capture stays within the level, so each
+ * level is solved by sweeping over its positions, narrowing a lower and an upper bound on every value
+ * until neither moves. Where they still differ, play can go round forever, and the value is taken
+ * as though each player kept the seeds on their own side, which is also the value when the player to
+ * move cannot sow. Sweeps are split between threads, and each solved level is written to the file
+ * in chunks.
+ *
+ * Usage: java tools.TablebaseGenerator file maxSeeds [threads]
+ */
+public class TablebaseGenerator
+{
+	private static final int MAX_SWEEPS = 100000, CHUNK_SIZE = 1 << 20, TASKS_PER_THREAD = 8,
+		NUMBER_OF_HOUSES = 12;
+
+	private final int maxSeeds, threads;
+
+	/**
+	 * Construct a generator
+	 * @param maxSeeds the largest number of seeds on the board to solve positions for
+	 * @param threads the number of threads to sweep with
+	 */
+	public TablebaseGenerator(int maxSeeds, int threads)
+	{
+		if (maxSeeds < 0 || maxSeeds > Tablebase.MAX_SUPPORTED_SEEDS)
+			throw new IllegalArgumentException("A tablebase can hold between 0 and " + Tablebase.MAX_SUPPORTED_SEEDS + " seeds");
+		if (threads < 1)
+			throw new IllegalArgumentException("The generator needs at least one thread");
+		this.maxSeeds = maxSeeds;
+		this.threads = threads;
+	}
+
+	/**
+	 * Solves every level and writes the tablebase to the specified file, replacing it,
+	 * reporting each level solved on standard output.
+	 *
+	 * @throws IOException if the file cannot be written.
+	 */
+	public void generate(Path output) throws IOException
+	{
+		generate(output, System.out);
+	}
+
+	/**
+	 * Solves every level and writes the tablebase to the specified file, replacing it.
+	 *
+	 * @param progress where to report each level solved
+	 * @throws IOException if the file cannot be written.
+	 */
+	public void generate(Path output, PrintStream progress) throws IOException
+	{
+		ExecutorService executor = Executors.newFixedThreadPool(threads);
+		try (FileChannel channel = FileChannel.open(output, StandardOpenOption.CREATE, StandardOpenOption.READ,
+			StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING))
+		{
+			ByteBuffer header = ByteBuffer.allocate(Tablebase.HEADER_SIZE);
+			header.putInt(Tablebase.MAGIC).putInt(maxSeeds).flip();
+			writeFully(channel, header, 0);
+
+			MappedByteBuffer[] solved = new MappedByteBuffer[maxSeeds + 1];
+			for (int seeds = 0; seeds <= maxSeeds; seeds++)
+			{
+				long start = System.nanoTime();
+				byte[] values = solveLevel(executor, seeds, solved);
+				long position = Tablebase.HEADER_SIZE + Tablebase.offset(seeds);
+				for (int offset = 0; offset < values.length; offset += CHUNK_SIZE)
+					writeFully(channel, ByteBuffer.wrap(values, offset, Math.min(CHUNK_SIZE, values.length - offset)), position + offset);
+				solved[seeds] = channel.map(FileChannel.MapMode.READ_ONLY, position, values.length);
+				progress.println("Solved " + values.length + " positions with " + seeds + " seeds in "
+					+ (System.nanoTime() - start) / 1000000 + " ms");
+			}
+		}
+		finally
+		{
+			executor.shutdown();
+		}
+	}
+
+	private byte[] solveLevel(ExecutorService executor, int seeds, MappedByteBuffer[] solved) throws IOException
+	{
+		int count = (int) Tablebase.positionCount(seeds);
+		// Sweeps alternate between the buffers, each reading the values of the last sweep. Starting the
+		// first buffer from the lowest possible values, it only ever rises and the other only ever falls.
+		byte[][] buffers = { new byte[count], new byte[count] };
+		Arrays.fill(buffers[0], (byte) -seeds);
+		Arrays.fill(buffers[1], (byte) seeds);
+		int taskCount = Math.min(count, threads * TASKS_PER_THREAD);
+		List<Callable<Long>> tasks = new ArrayList<Callable<Long>>(taskCount);
+
+		int settledSweeps = 0;
+		for (int sweep = 0; settledSweeps < 2; sweep++)
+		{
+			if (sweep == MAX_SWEEPS)
+				throw new IllegalStateException("Level " + seeds + " did not settle after " + MAX_SWEEPS + " sweeps");
+			byte[] read = buffers[sweep % 2], write = buffers[(sweep + 1) % 2];
+			tasks.clear();
+			for (int task = 0; task < taskCount; task++)
+			{
+				int from = (int) ((long) count * task / taskCount), to = (int) ((long) count * (task + 1) / taskCount);
+				tasks.add(() -> sweep(seeds, from, to, read, write, solved));
+			}
+			settledSweeps = run(executor, tasks) == 0 ? settledSweeps + 1 : 0;
+		}
+
+		// Where the bounds still differ the value depends on play going round forever,
+		// and the players keep the seeds on their own side
+		byte[] lower = buffers[0], upper = buffers[1];
+		tasks.clear();
+		for (int task = 0; task < taskCount; task++)
+		{
+			int from = (int) ((long) count * task / taskCount), to = (int) ((long) count * (task + 1) / taskCount);
+			tasks.add(() -> settleCycles(seeds, from, to, lower, upper));
+		}
+		run(executor, tasks);
+		return lower;
+	}
+
+	private static long settleCycles(int seeds, int from, int to, byte[] lower, byte[] upper)
+	{
+		int[] houses = new int[NUMBER_OF_HOUSES];
+		Tablebase.unrank(from, seeds, houses);
+		for (int index = from; index < to; index++)
+		{
+			if (lower[index] != upper[index])
+				lower[index] = (byte) Math.max(lower[index], Math.min(upper[index], ownSeedsAhead(houses)));
+			nextBoard(houses);
+		}
+		return 0;
+	}
+
+	private static long sweep(int seeds, int from, int to, byte[] read, byte[] write, MappedByteBuffer[] solved)
+	{
+		Game game = new Game(false);
+		int[] houses = new int[NUMBER_OF_HOUSES];
+		long changed = 0;
+		Tablebase.unrank(from, seeds, houses);
+		for (int index = from; index < to; index++)
+		{
+			game.setPosition(houses, 0, 0, 0);
+			int best = Integer.MIN_VALUE;
+			for (int legalMoves = game.legalMoves(); legalMoves != 0; legalMoves &= legalMoves - 1)
+			{
+				game.makeMove(Integer.numberOfTrailingZeros(legalMoves));
+				int captured = game.getScore(0);
+				int child = (int) Tablebase.rank(game);
+				int childValue = captured > 0 ? solved[seeds - captured].get(child) : read[child];
+				game.unmakeMove();
+				best = Math.max(best, captured - childValue);
+			}
+			if (best == Integer.MIN_VALUE)
+				best = ownSeedsAhead(houses);
+			if (best != write[index])
+				changed++;
+			write[index] = (byte) best;
+			nextBoard(houses);
+		}
+		return changed;
+	}
+
+	// The seeds on player 0's side less those on player 1's side
+	private static int ownSeedsAhead(int[] houses)
+	{
+		int difference = 0;
+		for (int i = 0; i < NUMBER_OF_HOUSES; i++)
+			difference += i < NUMBER_OF_HOUSES / 2 ? houses[i] : -houses[i];
+		return difference;
+	}
+
+	// Steps to the board with the next rank: the last house that can take a seed from the houses after it does so
+	private static void nextBoard(int[] houses)
+	{
+		int i = NUMBER_OF_HOUSES - 2, after = houses[NUMBER_OF_HOUSES - 1];
+		while (i >= 0 && after == 0)
+			after += houses[i--];
+		if (i < 0)
+			return;
+		houses[i]++;
+		for (int j = i + 1; j < NUMBER_OF_HOUSES - 1; j++)
+			houses[j] = 0;
+		houses[NUMBER_OF_HOUSES - 1] = after - 1;
+	}
+
+	private static long run(ExecutorService executor, List<Callable<Long>> tasks) throws IOException
+	{
+		long total = 0;
+		try
+		{
+			for (Future<Long> result : executor.invokeAll(tasks))
+				total += result.get();
+		}
+		catch (InterruptedException e)
+		{
+			Thread.currentThread().interrupt();
+			throw new IOException("Interrupted while generating the tablebase", e);
+		}
+		catch (ExecutionException e)
+		{
+			throw new IOException("Generating the tablebase failed", e.getCause());
+		}
+		return total;
+	}
+
+	private static void writeFully(FileChannel channel, ByteBuffer buffer, long position) throws IOException
+	{
+		while (buffer.hasRemaining())
+			position += channel.write(buffer, position);
+	}
+
+	public static void main(String[] args) throws IOException
+	{
+		if (args.length < 2)
+		{
+			System.out.println("Usage: java tools.TablebaseGenerator file maxSeeds [threads]");
+			return;
+		}
+		int threads = args.length > 2 ? Integer.parseInt(args[2]) : Runtime.getRuntime().availableProcessors();
+		new TablebaseGenerator(Integer.parseInt(args[1]), threads).generate(Paths.get(args[0]));
+	}
+}
@@ -1,7 +1,10 @@
 package view;
 
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.concurrent.CompletableFuture;
 
+import javafx.animation.AnimationTimer;
 import javafx.application.Platform;
 import javafx.event.ActionEvent;
 import javafx.event.EventHandler;
@@ -14,21 +17,28 @@ import javafx.scene.control.Label;
 import javafx.scene.effect.DropShadow;
 import javafx.scene.paint.Paint;
 import javafx.scene.text.Font;
+import model.SowingTable;
 
 /**
  * Animated interface class to represent an Oware game's state.
  */
 public class GameBoard extends StackPane {
+	private Canvas boardView;
 	private Canvas gameView;
 	private GraphicsContext graphicsContext;
 	private BoardInterface boardInterface;
 	private ArrayList<Sprite> spriteList = new ArrayList<Sprite>();
 	private ArrayList<HouseGroup> houseList = new ArrayList<HouseGroup>();
+	private ArrayList<SeedSprite> removedSeeds = new ArrayList<SeedSprite>(48);
 	private int playerOneSeeds = 0;
 	private int playerTwoSeeds = 0;
 	private Label winnerLabel;	
 	private Label turnLabel;
 	private HBox labelPane;
+	private int movingSeeds = 0;
+	private CompletableFuture<Void> animationsFinished = CompletableFuture.completedFuture(null);
+	private final AnimationTimer renderLoop = new RenderLoop();
+	private double[] dirtyAreas = new double[64];
 		
 	/**
 	 * Constructs new GameBoard object with initial option to choose player count,
@@ -36,6 +46,7 @@ public class GameBoard extends StackPane {
 	 */
 	public GameBoard(){
 		boardInterface = new BoardInterface();
+		boardView = new Canvas(640,400);
 		gameView = new Canvas(640,400);
 		graphicsContext = gameView.getGraphicsContext2D();
 		winnerLabel = new Label();
@@ -43,7 +54,6 @@ public class GameBoard extends StackPane {
 		labelPane = new HBox();
 
 		setupView();
-		startLoop();
 	}
 
 	/**
@@ -75,7 +85,15 @@ public class GameBoard extends StackPane {
 	 * @return boolean flag for whether game changes are being drawn, true if yes, false otherwise.
 	 */	
 	public synchronized boolean isAnimating(){
-		return SeedSprite.seedsMoving();
+		return movingSeeds > 0;
+	}
+
+	/**
+	 * Retrieves a future completed as soon as the last moving seed reaches its target.
+	 * @return The future for the animations started so far, already completed if none are running.
+	 */
+	public synchronized CompletableFuture<Void> whenAnimationsFinished(){
+		return animationsFinished;
 	}
 
 	public void write() {
@@ -95,16 +113,11 @@ public class GameBoard extends StackPane {
 	 * @param houseNo The index of the house that was distributed.
 	 */
 	public synchronized void sow(int houseNo){
-		ArrayList<SeedSprite> seedsToDistribute = houseList.get(houseNo).removeSeeds();
-		int skipOffset = -1;
-		for(int i = 0; i < seedsToDistribute.size(); ++i){
-			if(i % 11 == 0) ++skipOffset; 
-			int receiverIndx = houseNo-i-1-skipOffset;
-			receiverIndx = (receiverIndx%12);
-			if(receiverIndx  < 0) receiverIndx+=12;
-			HouseGroup receiver = houseList.get(receiverIndx);
-			SeedSprite movingSeed = seedsToDistribute.get(i);
-			movingSeed.moveTo(receiver.getX(),receiver.getY(), 1);
+		houseList.get(houseNo).removeSeeds(removedSeeds);
+		for(int i = 0; i < removedSeeds.size(); ++i){
+			HouseGroup receiver = houseList.get(SowingTable.receiver(houseNo, i));
+			SeedSprite movingSeed = removedSeeds.get(i);
+			moveSeed(movingSeed, receiver.getX(), receiver.getY());
 			receiver.give(movingSeed);
 		}
 
@@ -115,14 +128,15 @@ public class GameBoard extends StackPane {
 	 * @param houseNo The index of the house from which seeds were captured.
 	 */
 	public synchronized void take(int houseNo, boolean ownHouses){
-		ArrayList<SeedSprite> seedsToTake = houseList.get(houseNo).removeSeeds();
-		for(SeedSprite s : seedsToTake){
+		houseList.get(houseNo).removeSeeds(removedSeeds);
+		for(int i = 0; i < removedSeeds.size(); ++i){
+			SeedSprite s = removedSeeds.get(i);
 			if(houseNo<6 ^ ownHouses){
 				double y = Math.floorDiv(playerTwoSeeds, 16);
-				s.moveTo(330+((playerTwoSeeds++%16)*15), 180+(20*y), 1);
+				moveSeed(s, 330+((playerTwoSeeds++%16)*15), 180+(20*y));
 			}else{
 				double y = Math.floorDiv(playerOneSeeds, 16);
-				s.moveTo(295-((playerOneSeeds++%16)*15), 180+(20*y), 1);
+				moveSeed(s, 295-((playerOneSeeds++%16)*15), 180+(20*y));
 			}
 			
 		}
@@ -132,7 +146,7 @@ public class GameBoard extends StackPane {
 	/**
 	 * Resets the GameBoard to represent beginning of new game, with player number choice interface.
 	 */	
-	public void reset(){
+	public synchronized void reset(){
 		playerOneSeeds = 0;
 		playerTwoSeeds = 0;
 		houseList.clear();
@@ -142,21 +156,25 @@ public class GameBoard extends StackPane {
 		}
 
 		spriteList.clear();
-		spriteList.add(new Sprite("board.png",640,400,1));
+		graphicsContext.clearRect(0, 0, gameView.getWidth(), gameView.getHeight());
 
 		for(int i = 0; i < 12; ++i){
 			for(int j = 0; j < 4; ++j){
 				SeedSprite newSeed = new SeedSprite();
+				newSeed.setArrivalListener(this::seedArrived);
 				houseList.get(i).give(newSeed);
 				spriteList.add(newSeed);
 			}
 		}
 
-		SeedSprite.resetMoveCounter();
+		// The old seeds are gone, so nobody is left waiting for them
+		movingSeeds = 0;
+		animationsFinished.complete(null);
 		turnLabel.setText("");
 		labelPane.getChildren().clear();
 		labelPane.getChildren().add(turnLabel);
 		boardInterface.setPlayerChoice();
+		requestFrames();
 	}
 	
 	/**
@@ -211,59 +229,110 @@ public class GameBoard extends StackPane {
 	
 
 	
-	private void startLoop(){
-		new Thread(){{this.setDaemon(true);}
-			double updateInterval = 1000000000/60;
-			double lastTime = System.nanoTime();
-			public void run(){
-				while(true){
-					try{
-					        Thread.sleep(15);
-					}
-					catch (Exception e){
-					        e.printStackTrace();
-					}
-					double curTime = System.nanoTime();
-					double delta = curTime - lastTime;
-					if(delta > updateInterval){
-						
-						update(delta);
-						
-						Platform.runLater(new Runnable() {
-						      @Override public void run() {
-						       draw();     
-						      }
-					    });
-					
-						lastTime = curTime;
-					}
-				}
-				
-			}
-			
-		}.start();
-		
+	/**
+	 * Renders in step with the screen's pulses, updating and drawing in one go so late frames are
+	 * coalesced into a longer update. Stops itself once no seed is moving, leaving an idle board
+	 * untouched until the next move or reset.
+	 */
+	private class RenderLoop extends AnimationTimer {
+		private long lastTime = -1;
+
+		@Override
+		public void handle(long now){
+			double delta = lastTime < 0 ? 0 : now - lastTime;
+			lastTime = now;
+			if(!frame(delta)) stop();
+		}
+
+		@Override
+		public void stop(){
+			super.stop();
+			lastTime = -1;
+		}
 	}
-	
+
+	private void requestFrames(){
+		if(Platform.isFxApplicationThread()) renderLoop.start();
+		else Platform.runLater(renderLoop::start);
+	}
+
+	// Returns whether more frames are needed
+	private synchronized boolean frame(double delta){
+		update(delta);
+		draw();
+		return movingSeeds > 0;
+	}
+
+	/**
+	 * Redraws only where sprites have moved from or to, leaving the rest of the seed layer as it is.
+	 */
 	private void draw(){
-		for(Sprite s : spriteList){
-			s.draw(graphicsContext);
-			
+		int areaCount = 0;
+		for(int i = 0; i < spriteList.size(); ++i){
+			Sprite s = spriteList.get(i);
+			if(!s.hasMoved()) continue;
+			if(areaCount + 8 > dirtyAreas.length) dirtyAreas = Arrays.copyOf(dirtyAreas, dirtyAreas.length*2);
+			double[] drawnPos = s.getDrawnPos();
+			if(!Double.isNaN(drawnPos[0])) areaCount = addDirtyArea(areaCount, drawnPos[0], drawnPos[1], s);
+			areaCount = addDirtyArea(areaCount, s.getPos()[0], s.getPos()[1], s);
+			s.markDrawn();
 		}
-	}	
-	
+		for(int i = 0; i < areaCount; i += 4){
+			redrawArea(dirtyAreas[i], dirtyAreas[i+1], dirtyAreas[i+2], dirtyAreas[i+3]);
+		}
+	}
+
+	// Grows the sprite's bounds to whole pixels, with a pixel to spare for smoothed edges
+	private int addDirtyArea(int areaCount, double x, double y, Sprite s){
+		double left = Math.floor(x)-1;
+		double top = Math.floor(y)-1;
+		dirtyAreas[areaCount] = left;
+		dirtyAreas[areaCount+1] = top;
+		dirtyAreas[areaCount+2] = Math.ceil(x+s.getWidth())+1-left;
+		dirtyAreas[areaCount+3] = Math.ceil(y+s.getHeight())+1-top;
+		return areaCount+4;
+	}
+
+	private void redrawArea(double x, double y, double width, double height){
+		graphicsContext.save();
+		graphicsContext.beginPath();
+		graphicsContext.rect(x, y, width, height);
+		graphicsContext.clip();
+		graphicsContext.clearRect(x, y, width, height);
+		for(int i = 0; i < spriteList.size(); ++i){
+			Sprite s = spriteList.get(i);
+			if(s.overlaps(x, y, width, height)) s.draw(graphicsContext);
+		}
+		graphicsContext.restore();
+	}
+
+	private void moveSeed(SeedSprite seed, double x, double y){
+		if(!seed.isMoving() && movingSeeds++ == 0){
+			animationsFinished = new CompletableFuture<Void>();
+			requestFrames();
+		}
+		seed.moveTo(x, y, 1);
+	}
+
+	private void seedArrived(){
+		if(--movingSeeds == 0) animationsFinished.complete(null);
+	}
+
 	private void update(double delta){
-		for(Sprite s : spriteList){
-			s.update(delta);
+		// Indexed loops, as iterators would be garbage every frame
+		for(int i = 0; i < spriteList.size(); ++i){
+			spriteList.get(i).update(delta);
 		}
 
-		for(HouseGroup h : houseList){
-			
-			h.update(delta);
+		for(int i = 0; i < houseList.size(); ++i){
+			houseList.get(i).update(delta);
 		}
 	}	
 
 	private void setupView(){
+		// The board never changes, so it is drawn once on a layer of its own under the seeds
+		new Sprite("board.png",640,400,1).draw(boardView.getGraphicsContext2D());
+		this.getChildren().add(boardView);
 		this.getChildren().add(gameView);
 		this.getChildren().add(labelPane);
 		this.getChildren().add(boardInterface); // add interface here
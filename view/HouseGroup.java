@@ -10,7 +10,7 @@ public class HouseGroup {
 	private double curTheta = 0;
 	private static double thetaIncrementPerSecond = (2*Math.PI)/4;
 	private double startX, startY;
-	private ArrayList<SeedSprite> seedsInGroup = new ArrayList<SeedSprite>();
+	private ArrayList<SeedSprite> seedsInGroup = new ArrayList<SeedSprite>(48);
 	
 	/**
 	 * Constructs new HouseGroup, it's seed formation position based on given grouping number.
@@ -50,13 +50,16 @@ public class HouseGroup {
 	}
 
 	/**
-	 * Removes all tracked SeedSprite objects in this grouping. 
-	 * @return ArrayList of SeedSprite objects removed.
+	 * Removes all tracked SeedSprite objects in this grouping, moving them into a list the caller reuses.
+	 * @param removed The list to clear and fill with the SeedSprite objects removed.
 	 */
-	public ArrayList<SeedSprite> removeSeeds(){
-		ArrayList<SeedSprite> toReturn = new ArrayList<SeedSprite>(seedsInGroup);
+	public void removeSeeds(ArrayList<SeedSprite> removed){
+		removed.clear();
+		// Not addAll, which copies through a new array
+		for(int i = 0; i < seedsInGroup.size(); ++i){
+			removed.add(seedsInGroup.get(i));
+		}
 		seedsInGroup.clear();
-		return toReturn;
 	}
 
 	/**
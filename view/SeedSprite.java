@@ -9,7 +9,7 @@ public class SeedSprite extends Sprite {
 	private double horizontalVelocity = 0;
 	private double target[] = {0,0};
 	private boolean isMoving = false;
-	private static int movingSpriteCount = 0;
+	private Runnable arrivalListener;
 		
 	/**
 	 * Constructs new SeedSprite from sheet at 'images/seed.png', with dimensions of (30,30) and one frame.
@@ -20,15 +20,19 @@ public class SeedSprite extends Sprite {
 
 	/**
 	 * Sets the sprite on a straight line animation path, giving it pixel-based velocity based on target and time allowed.
+	 * A sprite already at the target arrives straight away.
 	 * @param x The x coordinate of the target position.
 	 * @param y The y coordinate of the target position.
 	 * @param timeForMove The time in which is move animation should be completed in.
 	 */
 	public void moveTo(double x, double y, double timeForMove){
-		if(!isMoving)++movingSpriteCount;
 		isMoving = true;
 		target[0] = x;
 		target[1] = y;
+		if(x == pos[0] && y == pos[1]){
+			arrive();
+			return;
+		}
 		if(timeForMove!=0){
 			horizontalVelocity = (x-pos[0])/timeForMove;
 			verticalVelocity = (y-pos[1])/timeForMove;
@@ -52,19 +56,28 @@ public class SeedSprite extends Sprite {
 			pos[1] += verticalVelocity*(delta/1000000000);
 			
 			if((horizontalVelocity > 0 && pos[0] >= target[0]) || (horizontalVelocity < 0 && pos[0] <= target[0])){
-				--movingSpriteCount;
-				isMoving = false;
-				pos[0] = target[0];
-				pos[1] = target[1];
+				arrive();
 			}else if((verticalVelocity > 0 && pos[1] >= target[1]) || (verticalVelocity < 0 && pos[1] <= target[1])){
-				--movingSpriteCount;
-				isMoving = false;
-				pos[0] = target[0];
-				pos[1] = target[1];
+				arrive();
 			}
 		}
 	}
 
+	/**
+	 * Sets the listener told when the sprite reaches the target of a moveTo path animation.
+	 * @param listener The listener to run on arrival, or null for none.
+	 */
+	public void setArrivalListener(Runnable listener){
+		arrivalListener = listener;
+	}
+
+	private void arrive(){
+		isMoving = false;
+		pos[0] = target[0];
+		pos[1] = target[1];
+		if(arrivalListener != null) arrivalListener.run();
+	}
+
 	/**
 	 * Check for whether sprite is currently in a moveTo path animation.
 	 * @return Result of boolean flag for animation, true if in animation, false otherwise.
@@ -72,24 +85,4 @@ public class SeedSprite extends Sprite {
 	public boolean isMoving(){
 		return isMoving;
 	}
-	
-	/**
-	 * Checks whether there are any referenceable instances of SeedSprite on a moveTo animation path.
-	 * (Dependent on internal counter)
-	 * @return Boolean flag. True if referenced sprites still animating, false if not.
-	 */
-	public static boolean seedsMoving(){
-		
-		return movingSpriteCount>0;
-	}
-	
-	/**
-	 * Resets the internal counter of currently animating seed sprite instances. 
-	 * Only use when sure you've lost reference to all animating seeds.
-	 */	
-	public static void resetMoveCounter(){
-		movingSpriteCount = 0;
-	}
 }
-
-
@@ -1,6 +1,5 @@
 package view;
 
-import java.util.ArrayList;
 import java.util.HashMap;
 
 import javafx.scene.canvas.GraphicsContext;
@@ -10,15 +9,16 @@ import javafx.scene.image.Image;
  * Utility Image wrapper for loading sprite from a spritesheet and handle updating/drawing
  */
 public class Sprite {
-	protected ArrayList<Double> arrayOfIndexes;	
+	protected double[] frameOffsets;
 	protected Image sheet;
 	protected int frameCount;
 	protected double[] pos;
+	protected double[] drawnPos = {Double.NaN, Double.NaN};
 	protected int currentIndex;
 	private double height, width;
 	private String basePath = "images/";
 	private static HashMap<String, Image> loadedSheets = new HashMap<String, Image>();
-	private static HashMap<String, ArrayList<Double>> loadedSheetIndexes = new HashMap<String, ArrayList<Double>>();
+	private static HashMap<String, double[]> loadedSheetOffsets = new HashMap<String, double[]>();
 
 	/**
 	 * Constructs new Sprite object from spritesheet at path, using specified parameters to process it.
@@ -48,12 +48,63 @@ public class Sprite {
 	}
 	
 	/**
-	 *  Sets the position of the Sprite to given coordinates.
+	 * Retrieves the position the Sprite was at when last marked as drawn.
+	 * @return Array of two doubles holding x and y coordinates, both NaN if never drawn.
+	 */
+	public double[] getDrawnPos(){
+		return drawnPos;
+	}
+
+	/**
+	 * Records the Sprite's current position as the one shown on screen.
+	 */
+	public void markDrawn(){
+		drawnPos[0] = pos[0];
+		drawnPos[1] = pos[1];
+	}
+
+	/**
+	 * Check for whether the Sprite has moved since it was last marked as drawn.
+	 * @return true if the Sprite moved or was never drawn, false otherwise.
+	 */
+	public boolean hasMoved(){
+		return pos[0] != drawnPos[0] || pos[1] != drawnPos[1];
+	}
+
+	/**
+	 * Check for whether the Sprite at its current position overlaps an area.
+	 * @param x The x coordinate of the area's top left corner.
+	 * @param y The y coordinate of the area's top left corner.
+	 * @param areaWidth The width of the area.
+	 * @param areaHeight The height of the area.
+	 * @return true if they overlap, false otherwise.
+	 */
+	public boolean overlaps(double x, double y, double areaWidth, double areaHeight){
+		return pos[0] < x+areaWidth && x < pos[0]+width && pos[1] < y+areaHeight && y < pos[1]+height;
+	}
+
+	/**
+	 * @return The width of a single sprite clip.
+	 */
+	public double getWidth(){
+		return width;
+	}
+
+	/**
+	 * @return The height of a single sprite clip.
+	 */
+	public double getHeight(){
+		return height;
+	}
+
+	/**
+	 *  Sets the position of the Sprite to given coordinates, in place so arrays from getPos() follow it.
 	 * @param x New x coordinate to be set.
 	 * @param y New y coordinate to be set.
 	 */
 	public void setPos(double x, double y){
-		this.pos = new double[]{x,y};
+		pos[0] = x;
+		pos[1] = y;
 	}
 
 	/**
@@ -61,7 +112,7 @@ public class Sprite {
 	 * @param g GraphicsContext object to draw onto.
 	 */	
 	public void draw(GraphicsContext g){
-		g.drawImage(sheet,arrayOfIndexes.get(currentIndex).doubleValue(),
+		g.drawImage(sheet,frameOffsets[currentIndex],
 					0.0, width, height, pos[0], pos[1], width, height);
 	}
 
@@ -86,19 +137,19 @@ public class Sprite {
 		
 		if(loadedSheets.containsKey(path)){
 			sheet = loadedSheets.get(path);
-			arrayOfIndexes = loadedSheetIndexes.get(path);
+			frameOffsets = loadedSheetOffsets.get(path);
 		}else{
-			arrayOfIndexes = new ArrayList<Double>();
+			frameOffsets = new double[frameCount];
 			String spritePath = basePath+path;
 	
 			sheet = new Image(this.getClass().getResourceAsStream(spritePath));
 			
 			
 			for(int i = 0; i < frameCount; i++){
-				arrayOfIndexes.add((double) (i*width));
+				frameOffsets[i] = i*width;
 			}
 			loadedSheets.put(path, sheet);
-			loadedSheetIndexes.put(path, arrayOfIndexes);
+			loadedSheetOffsets.put(path, frameOffsets);
 		}
 						
 	}